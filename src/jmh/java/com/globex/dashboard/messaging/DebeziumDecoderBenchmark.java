@@ -0,0 +1,104 @@
+package com.globex.dashboard.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.globex.dashboard.model.Customer;
+import com.globex.dashboard.model.LineItem;
+import com.globex.dashboard.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// The parse step of the three consumers: one Debezium envelope to a model object. Payloads are
+// String (StringDeserializer) or byte[] (ByteArrayDeserializer), cycling through distinct records.
+// tree* is the previous ObjectMapper tree path (TreeDecoder), which only took Strings, so byte[]
+// payloads are decoded to a String first, as StringDeserializer did for it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DebeziumDecoderBenchmark {
+    private static final int DISTINCT_RECORDS = 1024;
+
+    @Param({"string", "bytes"})
+    String payloadType;
+
+    private DebeziumDecoder decoder;
+    private TreeDecoder treeDecoder;
+    private Object[] customers;
+    private Object[] orders;
+    private Object[] lineItems;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        decoder = new DebeziumDecoder();
+        decoder.objectMapper = new ObjectMapper();
+        decoder.init();
+        treeDecoder = new TreeDecoder(decoder.objectMapper);
+        customers = new Object[DISTINCT_RECORDS];
+        orders = new Object[DISTINCT_RECORDS];
+        lineItems = new Object[DISTINCT_RECORDS];
+        for (int i = 0; i < DISTINCT_RECORDS; i++) {
+            customers[i] = payload(DebeziumPayloads.customer(i));
+            orders[i] = payload(DebeziumPayloads.order(i, "user" + (i % 100), 1_700_000_000_000_000L + i));
+            lineItems[i] = payload(DebeziumPayloads.lineItem(i, i / 3, 1 + i % 5));
+        }
+    }
+
+    @Benchmark
+    public Customer decodeCustomer() throws IOException {
+        return decoder.decodeCustomer(customers[nextIndex()]).getAfter();
+    }
+
+    @Benchmark
+    public Order decodeOrder() throws IOException {
+        return decoder.decodeOrder(orders[nextIndex()]).getAfter();
+    }
+
+    @Benchmark
+    public LineItem decodeLineItem() throws IOException {
+        return decoder.decodeLineItem(lineItems[nextIndex()]).getAfter();
+    }
+
+    @Benchmark
+    public Customer treeDecodeCustomer() throws IOException {
+        return treeDecoder.decodeCustomer(text(customers[nextIndex()]));
+    }
+
+    @Benchmark
+    public Order treeDecodeOrder() throws IOException {
+        return treeDecoder.decodeOrder(text(orders[nextIndex()]));
+    }
+
+    @Benchmark
+    public LineItem treeDecodeLineItem() throws IOException {
+        return treeDecoder.decodeLineItem(text(lineItems[nextIndex()]));
+    }
+
+    private static String text(Object payload) {
+        return payload instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : (String) payload;
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (DISTINCT_RECORDS - 1);
+        return next;
+    }
+
+    private Object payload(String json) {
+        return "bytes".equals(payloadType) ? json.getBytes(StandardCharsets.UTF_8) : json;
+    }
+}
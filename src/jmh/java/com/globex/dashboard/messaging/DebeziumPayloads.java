@@ -0,0 +1,42 @@
+package com.globex.dashboard.messaging;
+
+// Debezium JSON envelopes (schemas disabled) shaped like the globex Postgres connector's output
+public final class DebeziumPayloads {
+    private static final String[] PRODUCTS = {
+            "329299", "329199", "165953", "165954", "444434", "444435", "444436", "444437", "165613", "165614"
+    };
+
+    private DebeziumPayloads() {
+    }
+
+    public static String customer(int n) {
+        String row = "{\"id\":" + (n + 1) + ",\"user_id\":\"user" + n + "\",\"first_name\":\"First" + n
+                + "\",\"last_name\":\"Last" + n + "\",\"email\":\"user" + n + "@example.com\",\"phone\":\"555-01"
+                + (n % 100) + "\"}";
+        return envelope("customer", "u", row, row, n);
+    }
+
+    public static String order(int n, String customerId, long orderTsMicros) {
+        String row = "{\"id\":" + (n + 1) + ",\"customer_id\":\"" + customerId + "\",\"order_ts\":" + orderTsMicros
+                + ",\"total_amount\":null}";
+        return envelope("orders", "c", "null", row, n);
+    }
+
+    public static String lineItem(int n, int orderIndex, int quantity) {
+        String row = "{\"id\":" + (n + 1) + ",\"order_id\":" + (orderIndex + 1) + ",\"product_code\":\""
+                + PRODUCTS[n % PRODUCTS.length] + "\",\"quantity\":" + quantity + ",\"price\":\""
+                + (10 + n % 90) + ".99\"}";
+        return envelope("line_item", "c", "null", row, n);
+    }
+
+    private static String envelope(String table, String op, String before, String after, int n) {
+        long tsMs = 1_700_000_000_000L + n;
+        long lsn = 22_910_216L + n * 288L;
+        return "{\"before\":" + before + ",\"after\":" + after
+                + ",\"source\":{\"version\":\"2.3.0.Final\",\"connector\":\"postgresql\",\"name\":\"globex.updates\","
+                + "\"ts_ms\":" + tsMs + ",\"snapshot\":\"false\",\"db\":\"globex\",\"sequence\":\"[\\\"" + (lsn - 288)
+                + "\\\",\\\"" + lsn + "\\\"]\",\"schema\":\"public\",\"table\":\"" + table + "\",\"txId\":" + (565 + n)
+                + ",\"lsn\":" + lsn + ",\"xmin\":null},\"op\":\"" + op + "\",\"ts_ms\":" + (tsMs + 12)
+                + ",\"transaction\":null}";
+    }
+}
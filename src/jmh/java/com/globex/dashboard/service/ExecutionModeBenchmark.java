@@ -0,0 +1,112 @@
+package com.globex.dashboard.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// quarkus.virtual-threads.enabled false vs true for the /api endpoints: one op is a burst of
+// `clients` concurrent dashboard polls (recent orders, warehouse and loyalty views) run the way
+// DashboardResource offloads them, while one consumer thread keeps writing. "worker" is a pool sized
+// like Quarkus' default worker pool; "virtual" a thread per request and needs Java 21+ (on older JVMs
+// its trials fail in setup). `waitMicros` adds a blocking wait per request, standing in for a
+// slow client or downstream call, which is where the two modes differ most.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionModeBenchmark {
+    // Quarkus' default quarkus.thread-pool.max-threads: max(8 * cores, 200)
+    private static final int WORKER_THREADS = Math.max(8 * Runtime.getRuntime().availableProcessors(), 200);
+
+    @Param({"worker", "virtual"})
+    String mode;
+
+    @Param({"1000", "5000"})
+    int clients;
+
+    @Param({"0", "1000"})
+    long waitMicros;
+
+    @Param({"100000"})
+    int orders;
+
+    private OrderStateFixture fixture;
+    private OrderState state;
+    private ExecutorService executor;
+    private Thread writer;
+    private volatile boolean writing;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = new OrderStateFixture(orders, "objects");
+        state = fixture.state;
+        if ("virtual".equals(mode)) {
+            // Looked up reflectively so the benchmarks still compile for Java 17
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } else {
+            executor = Executors.newFixedThreadPool(WORKER_THREADS);
+        }
+        writing = true;
+        writer = new Thread(() -> {
+            while (writing) {
+                state.upsertOrder(fixture.randomOrderUpdate());
+                state.upsertLineItem(fixture.randomLineItemUpdate());
+            }
+        }, "consumer");
+        writer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        writing = false;
+        writer.join();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public int pollBurst() {
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[clients];
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            requests[i] = CompletableFuture.supplyAsync(() -> poll(client), executor);
+        }
+        CompletableFuture.allOf(requests).join();
+        return requests.length;
+    }
+
+    private int poll(int client) {
+        if (waitMicros > 0) {
+            try {
+                TimeUnit.MICROSECONDS.sleep(waitMicros);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        switch (client % 3) {
+            case 0:
+                return state.getRecentOrders(OrderState.RECENT_ORDERS_LIMIT).size();
+            case 1:
+                return state.getWarehouseOrders(OrderState.WAREHOUSE_ORDERS_LIMIT).size();
+            default:
+                return state.getLoyaltyByCustomer(100).size();
+        }
+    }
+}
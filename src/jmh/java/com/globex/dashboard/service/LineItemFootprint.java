@@ -0,0 +1,33 @@
+package com.globex.dashboard.service;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.function.Supplier;
+
+// Retained heap of each line item store holding OrderStateFixture's line items for `orders` orders,
+// as JOL walks the object graph reachable from the store. Backs the choice between the "objects"
+// and "compact" values of dashboard.store.line-items. Needs a heap of a few GB at 1M orders. Run:
+//   mvn -Pbenchmarks test-compile exec:exec -Dbenchmark.main=com.globex.dashboard.service.LineItemFootprint \
+//       -Djmh.args=1000000
+public final class LineItemFootprint {
+    private LineItemFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        report("objects", ObjectLineItemStore::new, orders);
+        report("compact", CompactLineItemStore::new, orders);
+    }
+
+    private static void report(String storage, Supplier<LineItemStore> factory, int orders) {
+        LineItemStore store = factory.get();
+        for (int i = 0; i < orders; i++) {
+            for (int j = 0; j < OrderStateFixture.LINE_ITEMS_PER_ORDER; j++) {
+                store.upsert(OrderStateFixture.lineItem(i, j, 1 + (i + j) % 4));
+            }
+        }
+        long bytes = GraphLayout.parseInstance(store).totalSize();
+        System.out.printf("%-8s %,d orders, %,d line items: %,d bytes retained, %.1f bytes per line item%n",
+                storage, orders, store.size(), bytes, (double) bytes / store.size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.globex.dashboard.service;
+
+import com.globex.dashboard.model.LoyaltyView;
+import com.globex.dashboard.model.OrderView;
+import com.globex.dashboard.model.WarehouseView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Single-threaded cost of each OrderState write and read path against a preloaded store
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderStateBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    int orders;
+
+    @Param({"objects", "compact"})
+    String lineItemStorage;
+
+    private OrderStateFixture fixture;
+    private OrderState state;
+
+    @Setup(Level.Trial)
+    public void load() {
+        fixture = new OrderStateFixture(orders, lineItemStorage);
+        state = fixture.state;
+    }
+
+    @Benchmark
+    public void upsertOrder() {
+        state.upsertOrder(fixture.randomOrderUpdate());
+    }
+
+    @Benchmark
+    public void upsertLineItem() {
+        state.upsertLineItem(fixture.randomLineItemUpdate());
+    }
+
+    @Benchmark
+    public List<OrderView> getRecentOrders() {
+        return state.getRecentOrders(OrderState.RECENT_ORDERS_LIMIT);
+    }
+
+    // What /api/loyalty serves by default: every customer
+    @Benchmark
+    public List<LoyaltyView> getLoyaltyByCustomer() {
+        return state.getLoyaltyByCustomer();
+    }
+
+    @Benchmark
+    public List<LoyaltyView> getLoyaltyTop100() {
+        return state.getLoyaltyByCustomer(100);
+    }
+
+    @Benchmark
+    public List<WarehouseView> getWarehouseOrders() {
+        return state.getWarehouseOrders(OrderState.WAREHOUSE_ORDERS_LIMIT);
+    }
+}
@@ -0,0 +1,86 @@
+package com.globex.dashboard.service;
+
+import com.globex.dashboard.model.LoyaltyView;
+import com.globex.dashboard.model.OrderView;
+import com.globex.dashboard.model.WarehouseView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Consumers and dashboard pollers hitting the same store at once: the three consumer threads
+// write while API threads read. Each method's score is its own per-call time under that load.
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderStateContentionBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    int orders;
+
+    @Param({"objects", "compact"})
+    String lineItemStorage;
+
+    // Recency index shards (dashboard.state.shards)
+    @Param({"1", "8"})
+    int shards;
+
+    private OrderStateFixture fixture;
+    private OrderState state;
+
+    @Setup(Level.Trial)
+    public void load() {
+        fixture = new OrderStateFixture(orders, lineItemStorage, shards);
+        state = fixture.state;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void writeOrder() {
+        state.upsertOrder(fixture.randomOrderUpdate());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void writeLineItem() {
+        state.upsertLineItem(fixture.randomLineItemUpdate());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public List<OrderView> readRecentOrders() {
+        return state.getRecentOrders(OrderState.RECENT_ORDERS_LIMIT);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<WarehouseView> readWarehouseOrders() {
+        return state.getWarehouseOrders(OrderState.WAREHOUSE_ORDERS_LIMIT);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<LoyaltyView> readLoyaltyTop100() {
+        return state.getLoyaltyByCustomer(100);
+    }
+}
@@ -0,0 +1,96 @@
+package com.globex.dashboard.service;
+
+import com.globex.dashboard.model.Customer;
+import com.globex.dashboard.model.LineItem;
+import com.globex.dashboard.model.Order;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// A preloaded OrderState: `orders` orders, LINE_ITEMS_PER_ORDER line items each and one customer per
+// ORDERS_PER_CUSTOMER orders. Order i has id i+1 and is created i seconds after BASE, so the
+// highest ids are the newest. 10M orders need a heap of roughly 16g (-jvmArgs -Xmx16g).
+final class OrderStateFixture {
+    static final int LINE_ITEMS_PER_ORDER = 3;
+    static final int ORDERS_PER_CUSTOMER = 10;
+    private static final Instant BASE = Instant.parse("2024-01-01T00:00:00Z");
+    private static final String[] PRODUCTS = {
+            "329299", "329199", "165953", "165954", "444434", "444435", "444436", "444437", "165613", "165614"
+    };
+    private static final int LOAD_BATCH = 10_000;
+
+    private final int orders;
+    private final int customers;
+    final OrderState state;
+
+    OrderStateFixture(int orders, String lineItemStorage) {
+        this(orders, lineItemStorage, 1);
+    }
+
+    OrderStateFixture(int orders, String lineItemStorage, int shards) {
+        this.orders = orders;
+        this.customers = Math.max(orders / ORDERS_PER_CUSTOMER, 1);
+        state = new OrderState();
+        state.lineItemStorage = lineItemStorage;
+        state.shardCount = shards;
+        state.trackedProducts = PRODUCTS.length;
+        state.registry = new SimpleMeterRegistry();
+        state.init();
+        load();
+    }
+
+    private void load() {
+        List<Customer> customerBatch = new ArrayList<>(LOAD_BATCH);
+        for (int c = 0; c < customers; c++) {
+            customerBatch.add(new Customer("user" + c, "First" + c + " Last" + c, "user" + c + "@example.com"));
+            if (customerBatch.size() == LOAD_BATCH) {
+                state.upsertCustomers(customerBatch);
+                customerBatch = new ArrayList<>(LOAD_BATCH);
+            }
+        }
+        state.upsertCustomers(customerBatch);
+
+        List<Order> orderBatch = new ArrayList<>(LOAD_BATCH);
+        List<LineItem> lineItemBatch = new ArrayList<>(LOAD_BATCH * LINE_ITEMS_PER_ORDER);
+        for (int i = 0; i < orders; i++) {
+            orderBatch.add(order(i, 0.0));
+            for (int j = 0; j < LINE_ITEMS_PER_ORDER; j++) {
+                lineItemBatch.add(lineItem(i, j, 1 + (i + j) % 4));
+            }
+            if (orderBatch.size() == LOAD_BATCH) {
+                state.upsertOrders(orderBatch);
+                state.upsertLineItems(lineItemBatch);
+                orderBatch = new ArrayList<>(LOAD_BATCH);
+                lineItemBatch = new ArrayList<>(LOAD_BATCH * LINE_ITEMS_PER_ORDER);
+            }
+        }
+        state.upsertOrders(orderBatch);
+        state.upsertLineItems(lineItemBatch);
+        state.drainChanges();
+    }
+
+    Order order(int i, double totalAmount) {
+        return new Order(String.valueOf(i + 1), "user" + (i % customers), totalAmount, BASE.plusSeconds(i));
+    }
+
+    static LineItem lineItem(int i, int j, int quantity) {
+        int n = i * LINE_ITEMS_PER_ORDER + j;
+        return new LineItem(String.valueOf(n + 1), String.valueOf(i + 1), PRODUCTS[n % PRODUCTS.length],
+                quantity, 10 + n % 90 + 0.99);
+    }
+
+    // An update to an existing order, as a Debezium "u" event would produce
+    Order randomOrderUpdate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return order(random.nextInt(orders), random.nextInt(10_000) / 100.0);
+    }
+
+    // A quantity change on an existing line item
+    LineItem randomLineItemUpdate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return lineItem(random.nextInt(orders), random.nextInt(LINE_ITEMS_PER_ORDER), 1 + random.nextInt(9));
+    }
+}
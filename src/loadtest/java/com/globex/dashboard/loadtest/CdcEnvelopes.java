@@ -0,0 +1,43 @@
+package com.globex.dashboard.loadtest;
+
+// Debezium JSON envelopes (schemas disabled) shaped like the globex Postgres connector's output.
+// source.ts_ms and ts_ms are both the send time, so the dashboard's Kafka-to-apply histogram
+// measures generator-to-apply latency.
+final class CdcEnvelopes {
+    private static final String[] PRODUCTS = {
+            "329299", "329199", "165953", "165954", "444434", "444435", "444436", "444437", "165613", "165614"
+    };
+
+    private long lsn = 22_910_216L;
+
+    String customer(String op, int customer, int revision) {
+        String row = "{\"id\":" + (customer + 1) + ",\"user_id\":\"user" + customer + "\",\"first_name\":\"First"
+                + customer + "\",\"last_name\":\"Last" + customer + (revision > 0 ? "-" + revision : "")
+                + "\",\"email\":\"user" + customer + "@example.com\"}";
+        return envelope("customer", op, row);
+    }
+
+    String order(String op, int order, int customer, long orderTsMicros, double totalAmount) {
+        String row = "{\"id\":" + (order + 1) + ",\"customer_id\":\"user" + customer + "\",\"order_ts\":"
+                + orderTsMicros + ",\"total_amount\":" + totalAmount + "}";
+        return envelope("orders", op, row);
+    }
+
+    String lineItem(String op, long lineItem, int order, int quantity) {
+        String row = "{\"id\":" + (lineItem + 1) + ",\"order_id\":" + (order + 1) + ",\"product_code\":\""
+                + PRODUCTS[(int) (lineItem % PRODUCTS.length)] + "\",\"quantity\":" + quantity + ",\"price\":\""
+                + (10 + lineItem % 90) + ".99\"}";
+        return envelope("line_item", op, row);
+    }
+
+    private String envelope(String table, String op, String after) {
+        long now = System.currentTimeMillis();
+        long previousLsn = lsn;
+        lsn += 288;
+        return "{\"before\":null,\"after\":" + after
+                + ",\"source\":{\"version\":\"2.3.0.Final\",\"connector\":\"postgresql\",\"name\":\"globex.updates\","
+                + "\"ts_ms\":" + now + ",\"snapshot\":\"false\",\"db\":\"globex\",\"sequence\":\"[\\\"" + previousLsn
+                + "\\\",\\\"" + lsn + "\\\"]\",\"schema\":\"public\",\"table\":\"" + table + "\",\"lsn\":" + lsn
+                + "},\"op\":\"" + op + "\",\"ts_ms\":" + now + ",\"transaction\":null}";
+    }
+}
@@ -0,0 +1,368 @@
+package com.globex.dashboard.loadtest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.reactive.messaging.memory.InMemoryConnector;
+import io.smallrye.reactive.messaging.memory.InMemorySource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Any;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Synthetic CDC load: Debezium envelopes for customers, orders and line items go to the consumer
+// channels through the in-memory connector while pollers hit /api/* like open dashboards do.
+// Reports sent and consumed events/sec, p99 generator-to-apply latency per table and p99 API latency.
+@ApplicationScoped
+public class LoadGenerator {
+    private static final Logger LOG = Logger.getLogger(LoadGenerator.class);
+    private static final long TICK_MILLIS = 10;
+    private static final String[] ENDPOINTS = {"/api/orders", "/api/loyalty", "/api/warehouse"};
+
+    @Inject
+    @Any
+    InMemoryConnector connector;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "dashboard.loadtest.enabled", defaultValue = "false")
+    boolean enabled;
+
+    // Target rate over all three channels; a new order counts as one event plus one per line item
+    @ConfigProperty(name = "dashboard.loadtest.events-per-second", defaultValue = "5000")
+    int eventsPerSecond;
+
+    @ConfigProperty(name = "dashboard.loadtest.duration", defaultValue = "60s")
+    Duration duration;
+
+    @ConfigProperty(name = "dashboard.loadtest.customers", defaultValue = "10000")
+    int customers;
+
+    @ConfigProperty(name = "dashboard.loadtest.line-items-per-order", defaultValue = "3")
+    int lineItemsPerOrder;
+
+    // Share of events that update an existing customer, order or line item rather than add an order
+    @ConfigProperty(name = "dashboard.loadtest.update-ratio", defaultValue = "0.3")
+    double updateRatio;
+
+    // Share of new orders whose line items are sent before the order itself
+    @ConfigProperty(name = "dashboard.loadtest.out-of-order-ratio", defaultValue = "0.1")
+    double outOfOrderRatio;
+
+    // 0 picks keys uniformly; higher values concentrate orders on few customers and updates on
+    // the newest orders
+    @ConfigProperty(name = "dashboard.loadtest.key-skew", defaultValue = "1.0")
+    double keySkew;
+
+    @ConfigProperty(name = "dashboard.loadtest.pollers", defaultValue = "4")
+    int pollers;
+
+    // Delay between two requests of one poller, like a dashboard's refresh interval
+    @ConfigProperty(name = "dashboard.loadtest.poll-interval", defaultValue = "1s")
+    Duration pollInterval;
+
+    @ConfigProperty(name = "dashboard.loadtest.report-interval", defaultValue = "10s")
+    Duration reportInterval;
+
+    @ConfigProperty(name = "quarkus.http.port", defaultValue = "8080")
+    int httpPort;
+
+    private final CdcEnvelopes envelopes = new CdcEnvelopes();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private InMemorySource<String> customerSource;
+    private InMemorySource<String> orderSource;
+    private InMemorySource<String> lineItemSource;
+    private ScheduledExecutorService scheduler;
+    private Counter sentEvents;
+    private Counter failedPolls;
+    private volatile boolean running;
+
+    // Owned by the generator thread
+    private int orders;
+    private long[] orderTsMicros = new long[1024];
+    private int[] orderCustomers = new int[1024];
+    private int revision;
+    private long startNanos;
+    private long sent;
+
+    // Owned by the reporter
+    private long lastReportNanos;
+    private double lastSent;
+    private double lastConsumed;
+    private double lastPolls;
+    private final Map<Meter.Id, CountAtBucket[]> lastBuckets = new HashMap<>();
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        customerSource = connector.source("customer-in");
+        orderSource = connector.source("orders-in");
+        lineItemSource = connector.source("lineitem-in");
+        sentEvents = Counter.builder("dashboard.loadtest.sent").register(registry);
+        failedPolls = Counter.builder("dashboard.loadtest.poll.failures").register(registry);
+        LOG.infof("Load test: %d events/s for %s, %d customers, %d line items per order, update ratio %.2f, "
+                        + "out-of-order ratio %.2f, key skew %.2f, %d pollers every %s",
+                eventsPerSecond, duration, customers, lineItemsPerOrder, updateRatio, outOfOrderRatio, keySkew,
+                pollers, pollInterval);
+
+        AtomicInteger threads = new AtomicInteger();
+        // Pollers send asynchronously, so a few threads drive thousands of simulated dashboards
+        scheduler = Executors.newScheduledThreadPool(4, r -> {
+            Thread thread = new Thread(r, "loadtest-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        scheduler.execute(this::seedCustomers);
+        for (int i = 0; i < pollers; i++) {
+            int poller = i;
+            scheduler.schedule(new Poller(poller), pollInterval.toMillis() * poller / Math.max(pollers, 1),
+                    TimeUnit.MILLISECONDS);
+        }
+        long reportMillis = reportInterval.toMillis();
+        scheduler.scheduleAtFixedRate(this::report, reportMillis, reportMillis, TimeUnit.MILLISECONDS);
+        scheduler.schedule(this::finish, duration.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // Snapshot reads of every customer, then the paced generator loop on this same thread
+    private void seedCustomers() {
+        for (int c = 0; c < customers && running; c++) {
+            send(customerSource, envelopes.customer("r", c, 0));
+        }
+        startNanos = System.nanoTime();
+        lastReportNanos = startNanos;
+        sent = 0;
+        scheduler.scheduleAtFixedRate(this::tick, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Sends whatever is due since the start, so a late tick catches up instead of lowering the rate
+    private void tick() {
+        long due = (long) (eventsPerSecond * ((System.nanoTime() - startNanos) / 1e9));
+        while (running && sent < due) {
+            nextEvent();
+        }
+    }
+
+    private void nextEvent() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (orders == 0 || random.nextDouble() >= updateRatio) {
+            newOrder(random);
+            return;
+        }
+        double kind = random.nextDouble();
+        if (kind < 0.6) {
+            int order = orders - 1 - skewed(orders, random);
+            int item = random.nextInt(lineItemsPerOrder);
+            send(lineItemSource, envelopes.lineItem("u", (long) order * lineItemsPerOrder + item, order,
+                    1 + random.nextInt(9)));
+        } else if (kind < 0.9) {
+            int order = orders - 1 - skewed(orders, random);
+            send(orderSource, envelopes.order("u", order, orderCustomers[order], orderTsMicros[order],
+                    random.nextInt(100_000) / 100.0));
+        } else {
+            send(customerSource, envelopes.customer("u", skewed(customers, random), ++revision));
+        }
+    }
+
+    private void newOrder(ThreadLocalRandom random) {
+        int order = orders;
+        if (order == orderTsMicros.length) {
+            orderTsMicros = Arrays.copyOf(orderTsMicros, order * 2);
+            orderCustomers = Arrays.copyOf(orderCustomers, order * 2);
+        }
+        orderTsMicros[order] = System.currentTimeMillis() * 1000;
+        orderCustomers[order] = skewed(customers, random);
+        orders++;
+
+        boolean lineItemsFirst = random.nextDouble() < outOfOrderRatio;
+        if (!lineItemsFirst) {
+            send(orderSource, envelopes.order("c", order, orderCustomers[order], orderTsMicros[order], 0.0));
+        }
+        for (int item = 0; item < lineItemsPerOrder; item++) {
+            send(lineItemSource, envelopes.lineItem("c", (long) order * lineItemsPerOrder + item, order,
+                    1 + random.nextInt(4)));
+        }
+        if (lineItemsFirst) {
+            send(orderSource, envelopes.order("c", order, orderCustomers[order], orderTsMicros[order], 0.0));
+        }
+    }
+
+    // Index in [0, n), biased towards 0 as key skew grows
+    private int skewed(int n, ThreadLocalRandom random) {
+        double u = random.nextDouble();
+        return (int) (n * (keySkew <= 0 ? u : Math.pow(u, 1 + keySkew)));
+    }
+
+    private void send(InMemorySource<String> source, String envelope) {
+        source.send(envelope);
+        sent++;
+        sentEvents.increment();
+    }
+
+    private synchronized void finish() {
+        running = false;
+        report();
+        LOG.infof("Load test finished after %s: %.0f events sent, %.0f consumed. Overall p99 apply latency: %s; "
+                        + "p99 API latency: %s", duration, sentEvents.count(), consumedEvents(),
+                p99ByTag("dashboard.freshness.kafka.to.apply", "table", false),
+                p99ByTag("dashboard.loadtest.api", "endpoint", false));
+        scheduler.shutdown();
+    }
+
+    // Rates and percentiles cover the interval since the previous report
+    private synchronized void report() {
+        long now = System.nanoTime();
+        double seconds = (now - lastReportNanos) / 1e9;
+        if (seconds <= 0) {
+            return;
+        }
+        double sentTotal = sentEvents.count();
+        double consumedTotal = consumedEvents();
+        double pollsTotal = completedPolls();
+        LOG.infof("Load test: sent %.0f/s, consumed %.0f/s, backlog %.0f, orders %d; p99 apply %s; "
+                        + "API %.0f req/s, %.0f failed, p99 %s",
+                (sentTotal - lastSent) / seconds, (consumedTotal - lastConsumed) / seconds,
+                Math.max(sentTotal - consumedTotal, 0), orders,
+                p99ByTag("dashboard.freshness.kafka.to.apply", "table", true),
+                (pollsTotal - lastPolls) / seconds, failedPolls.count(),
+                p99ByTag("dashboard.loadtest.api", "endpoint", true));
+        lastReportNanos = now;
+        lastSent = sentTotal;
+        lastConsumed = consumedTotal;
+        lastPolls = pollsTotal;
+    }
+
+    private double completedPolls() {
+        double polls = 0;
+        for (Timer timer : registry.find("dashboard.loadtest.api").timers()) {
+            polls += timer.count();
+        }
+        return polls;
+    }
+
+    private double consumedEvents() {
+        double consumed = 0;
+        for (Counter counter : registry.find("dashboard.consumer.records").counters()) {
+            consumed += counter.count();
+        }
+        return consumed;
+    }
+
+    // "tag=p99ms" for every timer of that name, from its histogram buckets: since the previous
+    // interval report, or since the start
+    private String p99ByTag(String name, String tag, boolean interval) {
+        StringBuilder out = new StringBuilder();
+        for (Timer timer : registry.find(name).timers()) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            CountAtBucket[] buckets = snapshot.histogramCounts();
+            CountAtBucket[] previous = interval ? lastBuckets.put(timer.getId(), buckets) : null;
+            if (out.length() > 0) {
+                out.append(", ");
+            }
+            out.append(timer.getId().getTag(tag)).append('=').append(p99Millis(buckets, previous, snapshot)).append("ms");
+        }
+        return out.length() > 0 ? out.toString() : "n/a";
+    }
+
+    // Upper bound of the bucket holding the 99th percentile; bucket counts are cumulative
+    private static String p99Millis(CountAtBucket[] buckets, CountAtBucket[] previous, HistogramSnapshot snapshot) {
+        if (buckets.length == 0) {
+            return "?";
+        }
+        boolean delta = previous != null && previous.length == buckets.length;
+        double total = buckets[buckets.length - 1].count() - (delta ? previous[previous.length - 1].count() : 0);
+        if (total <= 0) {
+            return "-";
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            double count = buckets[i].count() - (delta ? previous[i].count() : 0);
+            if (count >= total * 0.99) {
+                return String.valueOf((long) Math.ceil(buckets[i].bucket(TimeUnit.MILLISECONDS)));
+            }
+        }
+        return String.valueOf((long) Math.ceil(snapshot.max(TimeUnit.MILLISECONDS)));
+    }
+
+    // Cycles through the dashboard endpoints revalidating with If-None-Match, as the pages do. One
+    // request in flight at a time; the next is scheduled poll-interval after the response.
+    private final class Poller implements Runnable {
+        private final String[] etags = new String[ENDPOINTS.length];
+        private final List<Timer> timers;
+        private int next;
+
+        Poller(int index) {
+            next = index % ENDPOINTS.length;
+            timers = Arrays.stream(ENDPOINTS)
+                    .map(endpoint -> Timer.builder("dashboard.loadtest.api")
+                            .description("API latency seen by the load test pollers")
+                            .tag("endpoint", endpoint)
+                            .publishPercentileHistogram()
+                            .register(registry))
+                    .toList();
+        }
+
+        @Override
+        public void run() {
+            if (!running) {
+                return;
+            }
+            int endpoint = next;
+            next = (next + 1) % ENDPOINTS.length;
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + httpPort + ENDPOINTS[endpoint]))
+                    .header("Accept-Encoding", "gzip")
+                    .timeout(Duration.ofSeconds(30));
+            if (etags[endpoint] != null) {
+                request.header("If-None-Match", etags[endpoint]);
+            }
+            long start = System.nanoTime();
+            http.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, failure) -> {
+                if (failure == null) {
+                    timers.get(endpoint).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    etags[endpoint] = response.headers().firstValue("ETag").orElse(null);
+                } else {
+                    failedPolls.increment();
+                    LOG.debugf(failure, "Poll of %s failed", ENDPOINTS[endpoint]);
+                }
+                if (running) {
+                    try {
+                        scheduler.schedule(this, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException e) {
+                        // Finished in the meantime
+                    }
+                }
+            });
+        }
+    }
+}
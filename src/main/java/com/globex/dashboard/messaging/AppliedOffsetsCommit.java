@@ -0,0 +1,127 @@
+package com.globex.dashboard.messaging;
+
+import com.globex.dashboard.service.AppliedOffsets;
+import io.smallrye.common.annotation.Identifier;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.IncomingKafkaRecord;
+import io.smallrye.reactive.messaging.kafka.KafkaConnectorIncomingConfiguration;
+import io.smallrye.reactive.messaging.kafka.KafkaConsumer;
+import io.smallrye.reactive.messaging.kafka.commit.KafkaCommitHandler;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+// Commits AppliedOffsets instead of acknowledged offsets. The consumers return (and the record is
+// acked) as soon as a record is handed to an ingest lane, before it is in OrderState, so committing
+// acks could move the group past records that were never applied. This commits each assigned
+// partition just past its last applied record: periodically, when partitions are revoked and on
+// shutdown. Records applied after their partition was revoked are read again by the next owner.
+@ApplicationScoped
+@Identifier("dashboard-applied")
+public class AppliedOffsetsCommit implements KafkaCommitHandler.Factory {
+    private static final Logger LOG = Logger.getLogger(AppliedOffsetsCommit.class);
+
+    @Inject
+    AppliedOffsets appliedOffsets;
+
+    @ConfigProperty(name = "dashboard.ingest.commit-interval", defaultValue = "5s")
+    Duration commitInterval;
+
+    @Override
+    public KafkaCommitHandler create(KafkaConnectorIncomingConfiguration config, Vertx vertx,
+                                     KafkaConsumer<?, ?> consumer, BiConsumer<Throwable, Boolean> reportFailure) {
+        return new Handler(config.getChannel(), vertx, consumer, Math.max(commitInterval.toMillis(), 100));
+    }
+
+    private final class Handler implements KafkaCommitHandler {
+        private final String channel;
+        private final Vertx vertx;
+        private final KafkaConsumer<?, ?> consumer;
+        private final long timerId;
+        // Last offset committed per partition, so an idle partition isn't committed again every interval
+        private final Map<TopicPartition, Long> committed = new ConcurrentHashMap<>();
+
+        private Handler(String channel, Vertx vertx, KafkaConsumer<?, ?> consumer, long intervalMillis) {
+            this.channel = channel;
+            this.vertx = vertx;
+            this.consumer = consumer;
+            timerId = vertx.setPeriodic(intervalMillis, id -> commitApplied());
+        }
+
+        // Acks carry no offset information; the applied watermark is committed by the timer
+        @Override
+        public <K, V> Uni<Void> handle(IncomingKafkaRecord<K, V> record) {
+            return Uni.createFrom().voidItem();
+        }
+
+        // Runs on the polling thread, so the consumer is used directly
+        @Override
+        public void partitionsRevoked(Collection<TopicPartition> partitions) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = pending(partitions);
+            partitions.forEach(committed::remove);
+            if (offsets.isEmpty()) {
+                return;
+            }
+            try {
+                consumer.unwrap().commitSync(offsets);
+            } catch (RuntimeException e) {
+                LOG.warnf(e, "Failed to commit applied offsets of %s on revocation", channel);
+            }
+        }
+
+        @Override
+        public void terminate(boolean graceful) {
+            vertx.cancelTimer(timerId);
+            if (!graceful) {
+                return;
+            }
+            try {
+                consumer.getAssignments()
+                        .chain(this::commit)
+                        .await().atMost(Duration.ofSeconds(10));
+            } catch (RuntimeException e) {
+                LOG.warnf(e, "Failed to commit applied offsets of %s on shutdown", channel);
+            }
+        }
+
+        private void commitApplied() {
+            consumer.getAssignments()
+                    .chain(this::commit)
+                    .subscribe().with(ignored -> { },
+                            e -> LOG.warnf(e, "Failed to commit applied offsets of %s", channel));
+        }
+
+        private Uni<Void> commit(Set<TopicPartition> assigned) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = pending(assigned);
+            if (offsets.isEmpty()) {
+                return Uni.createFrom().voidItem();
+            }
+            return consumer.commitAsync(offsets)
+                    .invoke(() -> offsets.forEach((partition, offset) -> committed.put(partition, offset.offset())));
+        }
+
+        // Kafka's committed offset is the next one to read, one past the last applied record
+        private Map<TopicPartition, OffsetAndMetadata> pending(Collection<TopicPartition> partitions) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                Long applied = appliedOffsets.lastApplied(partition);
+                if (applied != null && !Long.valueOf(applied + 1).equals(committed.get(partition))) {
+                    offsets.put(partition, new OffsetAndMetadata(applied + 1));
+                }
+            }
+            return offsets;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.globex.dashboard.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+// Throughput and latency meters for one consumer channel; each channel reads one CDC topic.
+// Parse time is per record, apply time per OrderState call (one record, or a whole batch).
+final class ConsumerMetrics {
+    private final Counter records;
+    private final Counter parseFailures;
+    private final Timer parse;
+    private final Timer apply;
+
+    ConsumerMetrics(MeterRegistry registry, String channel) {
+        records = Counter.builder("dashboard.consumer.records")
+                .description("Records consumed")
+                .tag("channel", channel)
+                .register(registry);
+        parseFailures = Counter.builder("dashboard.consumer.parse.failures")
+                .description("Records that could not be decoded")
+                .tag("channel", channel)
+                .register(registry);
+        parse = Timer.builder("dashboard.consumer.parse")
+                .description("Time to decode one Debezium record")
+                .tag("channel", channel)
+                .publishPercentileHistogram()
+                .register(registry);
+        apply = Timer.builder("dashboard.consumer.apply")
+                .description("Time to apply decoded records to OrderState")
+                .tag("channel", channel)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    void received(int count) {
+        records.increment(count);
+    }
+
+    void parsed(long startNanos) {
+        parse.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void parseFailed() {
+        parseFailures.increment();
+    }
+
+    void applied(long startNanos) {
+        apply.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
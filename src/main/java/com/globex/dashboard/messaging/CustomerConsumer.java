@@ -1,97 +1,187 @@
 package com.globex.dashboard.messaging;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.globex.dashboard.model.Customer;
+import com.globex.dashboard.service.AppliedOffsets;
+import com.globex.dashboard.service.FreshnessTracker;
 import com.globex.dashboard.service.OrderState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.virtual.threads.VirtualThreads;
 import io.smallrye.reactive.messaging.annotations.Blocking;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordBatchMetadata;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 import org.jboss.logging.Logger;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
 @ApplicationScoped
 public class CustomerConsumer {
     private static final Logger LOG = Logger.getLogger(CustomerConsumer.class);
+    // Source table name, as used in freshness metrics and watermarks
+    private static final String TABLE = "customer";
 
     @Inject
     OrderState orderState;
 
     @Inject
-    ObjectMapper objectMapper;
+    DebeziumDecoder debeziumDecoder;
+
+    @Inject
+    AppliedOffsets appliedOffsets;
+
+    @Inject
+    FreshnessTracker freshness;
+
+    @Inject
+    MeterRegistry registry;
+
+    // Worker threads applying this channel's records in parallel, one lane per partition key; 0 applies
+    // every record on the channel's own thread
+    @ConfigProperty(name = "dashboard.ingest.lanes", defaultValue = "0")
+    int laneCount;
+
+    // Lanes run on virtual threads, on Java 21+ only
+    @ConfigProperty(name = "dashboard.ingest.virtual-threads", defaultValue = "false")
+    boolean virtualThreads;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreadExecutor;
 
+    private ConsumerMetrics metrics;
+    private IngestLanes lanes;
+
+    @PostConstruct
+    void init() {
+        metrics = new ConsumerMetrics(registry, "customer-in");
+        if (laneCount > 0) {
+            lanes = new IngestLanes("customer-in", laneCount,
+                    IngestLanes.laneExecutor("customer-in", virtualThreads, virtualThreadExecutor), registry);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (lanes != null) {
+            lanes.close();
+        }
+    }
+
+    // Payload is a single record, or a List of records when the channel runs with batch=true.
+    // Records are String, byte[] or ByteBuffer depending on the channel's value.deserializer.
     @Incoming("customer-in")
-    @Blocking
-    public void consume(String message) {
-        LOG.infof("Received customer message: %s", message);
+    @Blocking("dashboard-ingest")
+    public void consume(Object payload, Optional<IncomingKafkaRecordMetadata<?, ?>> recordMetadata,
+                        Optional<IncomingKafkaRecordBatchMetadata<?, ?>> batchMetadata) {
+        if (payload instanceof List<?> batch) {
+            metrics.received(batch.size());
+            if (lanes != null && batchMetadata.isPresent()) {
+                lanes.executeBatch(batchMetadata.get(), (records, partition, lastOffset) ->
+                        applyBatch(records, () -> appliedOffsets.applied(partition, lastOffset)));
+            } else {
+                applyBatch(batch, () -> batchMetadata.ifPresent(appliedOffsets::applied));
+            }
+            return;
+        }
+        metrics.received(1);
+        IncomingKafkaRecordMetadata<?, ?> record = recordMetadata.orElse(null);
+        if (lanes == null) {
+            apply(payload, record);
+        } else if (record != null) {
+            lanes.execute(record.getPartition(), () -> apply(payload, record));
+        } else {
+            // No partition to go by (in-memory channels): decode here so each customer stays on one lane
+            DebeziumEvent<Customer> event = parse(payload);
+            if (event != null) {
+                lanes.execute(event.getAfter().getId().hashCode(), () -> apply(event, 0L));
+            }
+        }
+    }
+
+    private void applyBatch(List<?> batch, Runnable onApplied) {
+        List<DebeziumEvent<Customer>> events = new ArrayList<>(batch.size());
+        List<Customer> customers = new ArrayList<>(batch.size());
+        for (Object record : batch) {
+            DebeziumEvent<Customer> event = parse(record);
+            if (event != null) {
+                events.add(event);
+                customers.add(event.getAfter());
+            }
+        }
+        long applyStart = System.nanoTime();
+        orderState.upsertCustomers(customers);
+        metrics.applied(applyStart);
+        // Kafka timestamps aren't matched to events in batch mode; Debezium's ts_ms stands in
+        for (DebeziumEvent<Customer> event : events) {
+            freshness.applied(TABLE, event.getSourceTsMs(), event.getSourceLsn(), event.getTsMs(), 0L);
+        }
+        onApplied.run();
+        LOG.infof("Processed customer batch: %d of %d records applied", customers.size(), batch.size());
+    }
+
+    private void apply(Object payload, IncomingKafkaRecordMetadata<?, ?> record) {
+        DebeziumEvent<Customer> event = parse(payload);
+        if (event != null) {
+            apply(event, record != null && record.getTimestamp() != null ? record.getTimestamp().toEpochMilli() : 0L);
+        }
+        if (record != null) {
+            appliedOffsets.applied(record);
+        }
+    }
+
+    private void apply(DebeziumEvent<Customer> event, long kafkaTsMs) {
+        long applyStart = System.nanoTime();
+        orderState.upsertCustomer(event.getAfter());
+        metrics.applied(applyStart);
+        freshness.applied(TABLE, event.getSourceTsMs(), event.getSourceLsn(), event.getTsMs(), kafkaTsMs);
+    }
+
+    private DebeziumEvent<Customer> parse(Object payload) {
+        long parseStart = System.nanoTime();
+        DebeziumEvent<Customer> event = decode(payload);
+        metrics.parsed(parseStart);
+        return event;
+    }
+
+    // The decoded event when it carries a row to upsert, null otherwise
+    private DebeziumEvent<Customer> decode(Object message) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debugf("Received customer message: %s", DebeziumDecoder.toText(message));
+        }
         try {
-            DebeziumMessage debeziumMessage = objectMapper.readValue(message, DebeziumMessage.class);
-            LOG.infof("Parsed Debezium message, op: %s", debeziumMessage.getOp());
-            
+            DebeziumEvent<Customer> event = debeziumDecoder.decodeCustomer(message);
+            String op = event.getOp();
+            LOG.infof("Parsed Debezium message, op: %s", op);
+
             // Handle create (c), update (u), and read/snapshot (r) operations
-            String op = debeziumMessage.getOp();
-            if (op != null && ("c".equals(op) || "u".equals(op) || "r".equals(op))) {
-                
-                Object after = debeziumMessage.getAfter();
-                if (after != null) {
-                    ObjectNode customerNode = objectMapper.valueToTree(after);
-                    LOG.infof("Processing customer after data, has user_id: %s, has id: %s", 
-                        customerNode.has("user_id"), customerNode.has("id"));
-                    
-                    Customer customer = new Customer();
-                    
-                    // Use user_id as the customer ID since orders reference customers by user_id
-                    // If user_id doesn't exist, fall back to id
-                    if (customerNode.has("user_id") && !customerNode.get("user_id").isNull()) {
-                        String userId = customerNode.get("user_id").asText();
-                        customer.setId(userId);
-                        LOG.infof("Set customer ID from user_id: %s", userId);
-                    } else if (customerNode.has("id")) {
-                        if (customerNode.get("id").isNumber()) {
-                            String id = String.valueOf(customerNode.get("id").asLong());
-                            customer.setId(id);
-                            LOG.infof("Set customer ID from numeric id: %s", id);
-                        } else {
-                            String id = customerNode.get("id").asText();
-                            customer.setId(id);
-                            LOG.infof("Set customer ID from string id: %s", id);
-                        }
-                    } else {
-                        LOG.warnf("Customer message has neither user_id nor id field");
-                    }
-                    
-                    // Combine first_name and last_name into name
-                    String firstName = customerNode.has("first_name") && !customerNode.get("first_name").isNull() 
-                        ? customerNode.get("first_name").asText() : "";
-                    String lastName = customerNode.has("last_name") && !customerNode.get("last_name").isNull() 
-                        ? customerNode.get("last_name").asText() : "";
-                    customer.setName((firstName + " " + lastName).trim());
-                    
-                    // Set email
-                    if (customerNode.has("email") && !customerNode.get("email").isNull()) {
-                        customer.setEmail(customerNode.get("email").asText());
-                    }
-                    
-                    // Only upsert if customer has a valid ID
-                    if (customer.getId() != null && !customer.getId().isEmpty()) {
-                        orderState.upsertCustomer(customer);
-                        LOG.infof("Successfully processed customer: %s, name: %s (op: %s)", customer.getId(), customer.getName(), op);
-                    } else {
-                        java.util.Iterator<String> fieldNames = customerNode.fieldNames();
-                        java.util.ArrayList<String> fieldList = new java.util.ArrayList<>();
-                        fieldNames.forEachRemaining(fieldList::add);
-                        String fieldNamesStr = fieldList.isEmpty() ? "none" : String.join(", ", fieldList);
-                        LOG.warnf("Skipping customer with null or empty ID. Customer node keys: %s (op: %s)", fieldNamesStr, op);
-                    }
-                } else {
-                    LOG.warnf("Customer message has null 'after' field (op: %s)", op);
-                }
-            } else {
+            if (!event.isUpsert()) {
                 LOG.infof("Skipping customer message with op: %s (not c, u, or r)", op);
+                return null;
+            }
+            Customer customer = event.getAfter();
+            if (customer == null) {
+                LOG.warnf("Customer message has null 'after' field (op: %s)", op);
+                return null;
             }
+            // Only upsert if customer has a valid ID
+            if (customer.getId() == null || customer.getId().isEmpty()) {
+                LOG.warnf("Skipping customer with null or empty ID, message has neither user_id nor id (op: %s)", op);
+                return null;
+            }
+            LOG.infof("Successfully processed customer: %s, name: %s (op: %s)", customer.getId(), customer.getName(), op);
+            return event;
         } catch (Exception e) {
-            LOG.errorf(e, "Error processing customer message: %s", message);
+            metrics.parseFailed();
+            LOG.errorf(e, "Error processing customer message: %s", DebeziumDecoder.toText(message));
         }
+        return null;
     }
 }
-
@@ -0,0 +1,286 @@
+package com.globex.dashboard.messaging;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.globex.dashboard.model.Customer;
+import com.globex.dashboard.model.LineItem;
+import com.globex.dashboard.model.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+// Single-pass, token-level decoder for Debezium JSON envelopes. Row images are read field by field
+// straight into the model objects, so no intermediate Map or JsonNode tree is built per event.
+@ApplicationScoped
+public class DebeziumDecoder {
+    private static final Logger LOG = Logger.getLogger(DebeziumDecoder.class);
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    private JsonFactory jsonFactory;
+
+    @PostConstruct
+    void init() {
+        jsonFactory = objectMapper.getFactory();
+    }
+
+    public DebeziumEvent<Customer> decodeCustomer(Object payload) throws IOException {
+        try (JsonParser parser = createParser(payload)) {
+            return decode(parser, DebeziumDecoder::readCustomer);
+        }
+    }
+
+    public DebeziumEvent<Order> decodeOrder(Object payload) throws IOException {
+        try (JsonParser parser = createParser(payload)) {
+            return decode(parser, DebeziumDecoder::readOrder);
+        }
+    }
+
+    public DebeziumEvent<LineItem> decodeLineItem(Object payload) throws IOException {
+        try (JsonParser parser = createParser(payload)) {
+            return decode(parser, DebeziumDecoder::readLineItem);
+        }
+    }
+
+    // Kafka payloads arrive as String, byte[] or ByteBuffer depending on the channel's value.deserializer.
+    // Byte payloads are parsed directly as UTF-8 without building an intermediate String.
+    private JsonParser createParser(Object payload) throws IOException {
+        if (payload instanceof byte[] bytes) {
+            return jsonFactory.createParser(bytes);
+        }
+        if (payload instanceof ByteBuffer buffer) {
+            if (buffer.hasArray()) {
+                return jsonFactory.createParser(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            }
+            return jsonFactory.createParser(new ByteBufferBackedInputStream(buffer.duplicate()));
+        }
+        return jsonFactory.createParser(String.valueOf(payload));
+    }
+
+    // Readable form of a payload for log messages
+    public static String toText(Object payload) {
+        if (payload instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (payload instanceof ByteBuffer buffer) {
+            return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+        }
+        return String.valueOf(payload);
+    }
+
+    private static <T> DebeziumEvent<T> decode(JsonParser parser, RowReader<T> rowReader) throws IOException {
+        DebeziumEvent<T> event = new DebeziumEvent<>();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return event;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "op":
+                    event.setOp(parser.getValueAsString(null));
+                    break;
+                case "after":
+                    event.setAfter(value == JsonToken.START_OBJECT ? rowReader.read(parser) : null);
+                    break;
+                case "before":
+                    event.setBefore(value == JsonToken.START_OBJECT ? rowReader.read(parser) : null);
+                    break;
+                case "source":
+                    if (value == JsonToken.START_OBJECT) {
+                        readSource(parser, event);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "ts_ms":
+                    event.setTsMs(value.isNumeric() ? parser.getLongValue() : 0L);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return event;
+    }
+
+    // Only the commit timestamp and log position are kept from the source block
+    private static void readSource(JsonParser parser, DebeziumEvent<?> event) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "ts_ms":
+                    event.setSourceTsMs(value.isNumeric() ? parser.getLongValue() : 0L);
+                    break;
+                case "lsn":
+                    event.setSourceLsn(value.isNumeric() ? parser.getLongValue() : null);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private static Customer readCustomer(JsonParser parser) throws IOException {
+        Customer customer = new Customer();
+        String userId = null;
+        String id = null;
+        String firstName = null;
+        String lastName = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "user_id":
+                    userId = readText(parser);
+                    break;
+                case "id":
+                    id = readId(parser);
+                    break;
+                case "first_name":
+                    firstName = readText(parser);
+                    break;
+                case "last_name":
+                    lastName = readText(parser);
+                    break;
+                case "email":
+                    customer.setEmail(readText(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        // Use user_id as the customer ID since orders reference customers by user_id
+        // If user_id doesn't exist, fall back to id
+        customer.setId(userId != null ? userId : id);
+        customer.setName(((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim());
+        return customer;
+    }
+
+    private static Order readOrder(JsonParser parser) throws IOException {
+        Order order = new Order();
+        Instant createdAt = null;
+        String createdAtText = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    order.setId(readId(parser));
+                    break;
+                case "customer_id":
+                    order.setCustomerId(readText(parser));
+                    break;
+                case "total_amount":
+                    // Otherwise calculated from line items when they arrive
+                    order.setTotalAmount(value == JsonToken.VALUE_NULL ? 0.0 : parser.getValueAsDouble(0.0));
+                    break;
+                case "order_ts":
+                    // order_ts is microseconds since epoch
+                    if (value.isNumeric() || value == JsonToken.VALUE_STRING) {
+                        long orderTsMicros = parser.getValueAsLong(0L);
+                        createdAt = Instant.ofEpochSecond(orderTsMicros / 1_000_000,
+                                (orderTsMicros % 1_000_000) * 1_000);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "created_at":
+                    createdAtText = readText(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (createdAt == null && createdAtText != null) {
+            // Fallback to created_at if order_ts is absent
+            try {
+                createdAt = Instant.parse(createdAtText);
+            } catch (Exception e) {
+                LOG.warnf("Failed to parse created_at, using current time: %s", createdAtText);
+            }
+        }
+        order.setCreatedAt(createdAt != null ? createdAt : Instant.now());
+        return order;
+    }
+
+    private static LineItem readLineItem(JsonParser parser) throws IOException {
+        LineItem lineItem = new LineItem();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    lineItem.setId(readId(parser));
+                    break;
+                case "order_id":
+                    lineItem.setOrderId(readId(parser));
+                    break;
+                case "product_code":
+                    // Use product_code instead of product_name
+                    lineItem.setProductName(readText(parser));
+                    break;
+                case "quantity":
+                    lineItem.setQuantity(value == JsonToken.VALUE_NULL ? 0 : parser.getValueAsInt(0));
+                    break;
+                case "price":
+                    // Use price instead of unit_price (price might be a string)
+                    lineItem.setUnitPrice(readPrice(parser, value));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return lineItem;
+    }
+
+    // Ids can be numbers or strings; numbers are normalized to their long form
+    private static String readId(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token.isNumeric()) {
+            return String.valueOf(parser.getValueAsLong());
+        }
+        return readText(parser);
+    }
+
+    private static String readText(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+
+    private static double readPrice(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            String price = parser.getText();
+            try {
+                return Double.parseDouble(price);
+            } catch (NumberFormatException e) {
+                LOG.warnf("Failed to parse price as double: %s", price);
+                return 0.0;
+            }
+        }
+        parser.skipChildren();
+        return 0.0;
+    }
+
+    @FunctionalInterface
+    private interface RowReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+}
@@ -0,0 +1,76 @@
+package com.globex.dashboard.messaging;
+
+// A decoded Debezium change event with its row images already mapped to the model type
+public class DebeziumEvent<T> {
+    private String op;
+    private T before;
+    private T after;
+    // source.ts_ms: when the change was committed in the database; 0 if absent
+    private long sourceTsMs;
+    // source.lsn: log position of the change (Postgres); null if absent
+    private Long sourceLsn;
+    // ts_ms: when Debezium processed the change; 0 if absent
+    private long tsMs;
+
+    public DebeziumEvent() {
+    }
+
+    public DebeziumEvent(String op, T before, T after) {
+        this.op = op;
+        this.before = before;
+        this.after = after;
+    }
+
+    // Create (c), update (u) and read/snapshot (r) events carry a row to upsert
+    public boolean isUpsert() {
+        return "c".equals(op) || "u".equals(op) || "r".equals(op);
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public T getBefore() {
+        return before;
+    }
+
+    public void setBefore(T before) {
+        this.before = before;
+    }
+
+    public T getAfter() {
+        return after;
+    }
+
+    public void setAfter(T after) {
+        this.after = after;
+    }
+
+    public long getSourceTsMs() {
+        return sourceTsMs;
+    }
+
+    public void setSourceTsMs(long sourceTsMs) {
+        this.sourceTsMs = sourceTsMs;
+    }
+
+    public Long getSourceLsn() {
+        return sourceLsn;
+    }
+
+    public void setSourceLsn(Long sourceLsn) {
+        this.sourceLsn = sourceLsn;
+    }
+
+    public long getTsMs() {
+        return tsMs;
+    }
+
+    public void setTsMs(long tsMs) {
+        this.tsMs = tsMs;
+    }
+}
@@ -1,41 +0,0 @@
-package com.globex.dashboard.messaging;
-
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.annotation.JsonProperty;
-
-@JsonIgnoreProperties(ignoreUnknown = true)
-public class DebeziumMessage {
-    @JsonProperty("op")
-    private String op;
-
-    @JsonProperty("after")
-    private Object after;
-
-    @JsonProperty("before")
-    private Object before;
-
-    public String getOp() {
-        return op;
-    }
-
-    public void setOp(String op) {
-        this.op = op;
-    }
-
-    public Object getAfter() {
-        return after;
-    }
-
-    public void setAfter(Object after) {
-        this.after = after;
-    }
-
-    public Object getBefore() {
-        return before;
-    }
-
-    public void setBefore(Object before) {
-        this.before = before;
-    }
-}
-
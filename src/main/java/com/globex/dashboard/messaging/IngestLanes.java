@@ -0,0 +1,208 @@
+package com.globex.dashboard.messaging;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordBatchMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// Worker threads that apply one channel's records in parallel. Every task with the same key runs on
+// the same lane in submission order; keys are Kafka partitions, so each partition (and every
+// Debezium key in it) is applied in offset order, and a partition's applied offset only ever moves
+// past records that are in OrderState. The channel's own worker thread just hands records over and
+// blocks while the lane is full. Lanes run on platform threads of their own, or on the given executor
+// (virtual threads, see laneExecutor). A lane parks on its queue and OrderState's ReentrantLocks,
+// which release a virtual thread's carrier, but also enters ConcurrentHashMap's synchronized bin
+// locks, which pin it while held or contended before JDK 24.
+final class IngestLanes {
+    private static final Logger LOG = Logger.getLogger(IngestLanes.class);
+    private static final int QUEUE_CAPACITY = 1024;
+    // How often a handoff blocked on a full lane checks whether the lane has stopped
+    private static final long HANDOFF_POLL_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final String channel;
+    private final Lane[] lanes;
+
+    IngestLanes(String channel, int count, Executor executor, MeterRegistry registry) {
+        this.channel = channel;
+        lanes = new Lane[count];
+        for (int i = 0; i < count; i++) {
+            lanes[i] = new Lane(channel + "-lane-" + i);
+            if (executor != null) {
+                executor.execute(lanes[i]);
+            } else {
+                Thread thread = new Thread(lanes[i], lanes[i].name);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            Gauge.builder("dashboard.consumer.lane.backlog", lanes[i].queue, BlockingQueue::size)
+                    .description("Records handed to an ingest lane but not applied yet")
+                    .tag("channel", channel)
+                    .tag("lane", String.valueOf(i))
+                    .register(registry);
+        }
+    }
+
+    // A lane holds its thread for as long as the channel runs. Before Java 21 Quarkus backs the
+    // @VirtualThreads executor with the default worker pool, where every lane would take a worker
+    // thread away from the /api endpoints for good, so lanes only use it on a JVM with virtual threads.
+    static Executor laneExecutor(String channel, boolean virtualThreads, Executor virtualThreadExecutor) {
+        if (!virtualThreads) {
+            return null;
+        }
+        if (Runtime.version().feature() < 21) {
+            LOG.warnf("Virtual threads need Java 21+; %s lanes run on platform threads", channel);
+            return null;
+        }
+        return virtualThreadExecutor;
+    }
+
+    int size() {
+        return lanes.length;
+    }
+
+    // Never drops a record: an interrupt only delays the handoff (and is restored after it), and once
+    // the lane has stopped the caller applies what is left itself. The channel hands records over from
+    // one thread at a time, so that stays in submission order.
+    void execute(int key, Runnable task) {
+        Lane lane = lanes[Math.floorMod(key, lanes.length)];
+        boolean interrupted = false;
+        try {
+            while (!lane.stopped) {
+                try {
+                    if (lane.queue.offer(task, HANDOFF_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (lane.stopped) {
+                            lane.drain();
+                        }
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            lane.drain();
+            lane.apply(task);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Splits a consumed batch by partition; each partition's records go to its lane as one task
+    void executeBatch(IncomingKafkaRecordBatchMetadata<?, ?> batch, PartitionBatch task) {
+        ConsumerRecords<?, ?> records = batch.getRecords();
+        for (TopicPartition partition : records.partitions()) {
+            List<? extends ConsumerRecord<?, ?>> partitionRecords = records.records(partition);
+            if (partitionRecords.isEmpty()) {
+                continue;
+            }
+            List<Object> values = new ArrayList<>(partitionRecords.size());
+            for (ConsumerRecord<?, ?> record : partitionRecords) {
+                values.add(record.value());
+            }
+            long lastOffset = partitionRecords.get(partitionRecords.size() - 1).offset();
+            execute(partition.partition(), () -> task.apply(values, partition, lastOffset));
+        }
+    }
+
+    // Applies what is still queued before the lanes stop, waiting up to CLOSE_TIMEOUT_SECONDS in all.
+    // Records handed over later are applied on the caller's thread.
+    void close() {
+        for (Lane lane : lanes) {
+            lane.close();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CLOSE_TIMEOUT_SECONDS);
+        for (Lane lane : lanes) {
+            try {
+                if (!lane.stoppedLatch.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    LOG.warnf("%s still had %d records to apply at shutdown", lane.name, lane.queue.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface PartitionBatch {
+        void apply(List<Object> records, TopicPartition partition, long lastOffset);
+    }
+
+    private static final class Lane implements Runnable {
+        private final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final CountDownLatch stoppedLatch = new CountDownLatch(1);
+        private final String name;
+        private volatile Thread runner;
+        private volatile boolean closed;
+        // Set once the lane has applied its last record; later records are applied by the caller
+        private volatile boolean stopped;
+
+        private Lane(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            runner = Thread.currentThread();
+            try {
+                while (true) {
+                    Runnable task;
+                    if (closed) {
+                        task = queue.poll();
+                        if (task == null) {
+                            break;
+                        }
+                    } else {
+                        try {
+                            task = queue.take();
+                        } catch (InterruptedException e) {
+                            // close() wakes the lane up to drain
+                            continue;
+                        }
+                    }
+                    apply(task);
+                }
+            } finally {
+                stopped = true;
+                stoppedLatch.countDown();
+                // Don't hand a pending interrupt from close() back to a pooled thread
+                Thread.interrupted();
+            }
+        }
+
+        void drain() {
+            for (Runnable task = queue.poll(); task != null; task = queue.poll()) {
+                apply(task);
+            }
+        }
+
+        void apply(Runnable task) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOG.errorf(e, "Failed to apply a record on %s", name);
+            }
+        }
+
+        void close() {
+            closed = true;
+            Thread thread = runner;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -1,108 +1,175 @@
 package com.globex.dashboard.messaging;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.globex.dashboard.model.LineItem;
+import com.globex.dashboard.service.AppliedOffsets;
+import com.globex.dashboard.service.FreshnessTracker;
 import com.globex.dashboard.service.OrderState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.virtual.threads.VirtualThreads;
 import io.smallrye.reactive.messaging.annotations.Blocking;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordBatchMetadata;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 import org.jboss.logging.Logger;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
 @ApplicationScoped
 public class LineItemConsumer {
     private static final Logger LOG = Logger.getLogger(LineItemConsumer.class);
+    // Source table name, as used in freshness metrics and watermarks
+    private static final String TABLE = "line_item";
 
     @Inject
     OrderState orderState;
 
     @Inject
-    ObjectMapper objectMapper;
+    DebeziumDecoder debeziumDecoder;
+
+    @Inject
+    AppliedOffsets appliedOffsets;
+
+    @Inject
+    FreshnessTracker freshness;
 
+    @Inject
+    MeterRegistry registry;
+
+    // Worker threads applying this channel's records in parallel, one lane per partition key; 0 applies
+    // every record on the channel's own thread
+    @ConfigProperty(name = "dashboard.ingest.lanes", defaultValue = "0")
+    int laneCount;
+
+    // Lanes run on virtual threads, on Java 21+ only
+    @ConfigProperty(name = "dashboard.ingest.virtual-threads", defaultValue = "false")
+    boolean virtualThreads;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreadExecutor;
+
+    private ConsumerMetrics metrics;
+    private IngestLanes lanes;
+
+    @PostConstruct
+    void init() {
+        metrics = new ConsumerMetrics(registry, "lineitem-in");
+        if (laneCount > 0) {
+            lanes = new IngestLanes("lineitem-in", laneCount,
+                    IngestLanes.laneExecutor("lineitem-in", virtualThreads, virtualThreadExecutor), registry);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (lanes != null) {
+            lanes.close();
+        }
+    }
+
+    // Payload is a single record, or a List of records when the channel runs with batch=true.
+    // Records are String, byte[] or ByteBuffer depending on the channel's value.deserializer.
     @Incoming("lineitem-in")
-    @Blocking
-    public void consume(String message) {
-        try {
-            DebeziumMessage debeziumMessage = objectMapper.readValue(message, DebeziumMessage.class);
-            
-            // Handle create (c), update (u), and read/snapshot (r) operations
-            String op = debeziumMessage.getOp();
-            if (op != null && ("c".equals(op) || "u".equals(op) || "r".equals(op))) {
-                
-                Object after = debeziumMessage.getAfter();
-                if (after != null) {
-                    ObjectNode lineItemNode = objectMapper.valueToTree(after);
-                    
-                    LineItem lineItem = new LineItem();
-                    
-                    // Handle id - can be number or string
-                    if (lineItemNode.has("id")) {
-                        if (lineItemNode.get("id").isNumber()) {
-                            lineItem.setId(String.valueOf(lineItemNode.get("id").asLong()));
-                        } else {
-                            lineItem.setId(lineItemNode.get("id").asText());
-                        }
-                    }
-                    
-                    // Handle order_id - can be number or string
-                    if (lineItemNode.has("order_id")) {
-                        if (lineItemNode.get("order_id").isNumber()) {
-                            lineItem.setOrderId(String.valueOf(lineItemNode.get("order_id").asLong()));
-                        } else {
-                            lineItem.setOrderId(lineItemNode.get("order_id").asText());
-                        }
-                    }
-                    
-                    // Use product_code instead of product_name
-                    lineItem.setProductName(getStringValue(lineItemNode, "product_code"));
-                    
-                    lineItem.setQuantity(getIntValue(lineItemNode, "quantity"));
-                    
-                    // Use price instead of unit_price (price might be a string)
-                    if (lineItemNode.has("price") && !lineItemNode.get("price").isNull()) {
-                        if (lineItemNode.get("price").isTextual()) {
-                            try {
-                                lineItem.setUnitPrice(Double.parseDouble(lineItemNode.get("price").asText()));
-                            } catch (NumberFormatException e) {
-                                LOG.warnf("Failed to parse price as double: %s", lineItemNode.get("price").asText());
-                                lineItem.setUnitPrice(0.0);
-                            }
-                        } else {
-                            lineItem.setUnitPrice(lineItemNode.get("price").asDouble());
-                        }
-                    } else {
-                        lineItem.setUnitPrice(0.0);
-                    }
-                    
-                    orderState.upsertLineItem(lineItem);
-                    LOG.infof("Processed line item: %s (op: %s)", lineItem.getId(), op);
-                }
+    @Blocking("dashboard-ingest")
+    public void consume(Object payload, Optional<IncomingKafkaRecordMetadata<?, ?>> recordMetadata,
+                        Optional<IncomingKafkaRecordBatchMetadata<?, ?>> batchMetadata) {
+        if (payload instanceof List<?> batch) {
+            metrics.received(batch.size());
+            if (lanes != null && batchMetadata.isPresent()) {
+                lanes.executeBatch(batchMetadata.get(), (records, partition, lastOffset) ->
+                        applyBatch(records, () -> appliedOffsets.applied(partition, lastOffset)));
+            } else {
+                applyBatch(batch, () -> batchMetadata.ifPresent(appliedOffsets::applied));
+            }
+            return;
+        }
+        metrics.received(1);
+        IncomingKafkaRecordMetadata<?, ?> record = recordMetadata.orElse(null);
+        if (lanes == null) {
+            apply(payload, record);
+        } else if (record != null) {
+            lanes.execute(record.getPartition(), () -> apply(payload, record));
+        } else {
+            // No partition to go by (in-memory channels): decode here so each order stays on one lane
+            DebeziumEvent<LineItem> event = parse(payload);
+            if (event != null) {
+                lanes.execute(event.getAfter().getOrderId().hashCode(), () -> apply(event, 0L));
             }
-        } catch (Exception e) {
-            LOG.errorf(e, "Error processing line item message: %s", message);
         }
     }
 
-    private String getStringValue(ObjectNode node, String field) {
-        if (node.has(field) && !node.get(field).isNull()) {
-            return node.get(field).asText();
+    private void applyBatch(List<?> batch, Runnable onApplied) {
+        List<DebeziumEvent<LineItem>> events = new ArrayList<>(batch.size());
+        List<LineItem> lineItems = new ArrayList<>(batch.size());
+        for (Object record : batch) {
+            DebeziumEvent<LineItem> event = parse(record);
+            if (event != null) {
+                events.add(event);
+                lineItems.add(event.getAfter());
+            }
         }
-        return null;
+        long applyStart = System.nanoTime();
+        orderState.upsertLineItems(lineItems);
+        metrics.applied(applyStart);
+        // Kafka timestamps aren't matched to events in batch mode; Debezium's ts_ms stands in
+        for (DebeziumEvent<LineItem> event : events) {
+            freshness.applied(TABLE, event.getSourceTsMs(), event.getSourceLsn(), event.getTsMs(), 0L);
+        }
+        onApplied.run();
+        LOG.infof("Processed line item batch: %d of %d records applied", lineItems.size(), batch.size());
     }
 
-    private int getIntValue(ObjectNode node, String field) {
-        if (node.has(field) && !node.get(field).isNull()) {
-            return node.get(field).asInt();
+    private void apply(Object payload, IncomingKafkaRecordMetadata<?, ?> record) {
+        DebeziumEvent<LineItem> event = parse(payload);
+        if (event != null) {
+            apply(event, record != null && record.getTimestamp() != null ? record.getTimestamp().toEpochMilli() : 0L);
+        }
+        if (record != null) {
+            appliedOffsets.applied(record);
         }
-        return 0;
     }
 
-    private double getDoubleValue(ObjectNode node, String field) {
-        if (node.has(field) && !node.get(field).isNull()) {
-            return node.get(field).asDouble();
+    private void apply(DebeziumEvent<LineItem> event, long kafkaTsMs) {
+        long applyStart = System.nanoTime();
+        orderState.upsertLineItem(event.getAfter());
+        metrics.applied(applyStart);
+        freshness.applied(TABLE, event.getSourceTsMs(), event.getSourceLsn(), event.getTsMs(), kafkaTsMs);
+    }
+
+    private DebeziumEvent<LineItem> parse(Object payload) {
+        long parseStart = System.nanoTime();
+        DebeziumEvent<LineItem> event = decode(payload);
+        metrics.parsed(parseStart);
+        return event;
+    }
+
+    // The decoded event when it carries a row to upsert, null otherwise
+    private DebeziumEvent<LineItem> decode(Object message) {
+        try {
+            DebeziumEvent<LineItem> event = debeziumDecoder.decodeLineItem(message);
+            // Handle create (c), update (u), and read/snapshot (r) operations
+            LineItem lineItem = event.getAfter();
+            if (!event.isUpsert() || lineItem == null) {
+                return null;
+            }
+            if (lineItem.getId() == null || lineItem.getOrderId() == null) {
+                LOG.warnf("Skipping line item without id or order_id (op: %s)", event.getOp());
+                return null;
+            }
+            LOG.infof("Processed line item: %s (op: %s)", lineItem.getId(), event.getOp());
+            return event;
+        } catch (Exception e) {
+            metrics.parseFailed();
+            LOG.errorf(e, "Error processing line item message: %s", DebeziumDecoder.toText(message));
         }
-        return 0.0;
+        return null;
     }
 }
-
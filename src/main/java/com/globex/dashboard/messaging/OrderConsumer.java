@@ -1,111 +1,176 @@
 package com.globex.dashboard.messaging;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.globex.dashboard.model.Order;
+import com.globex.dashboard.service.AppliedOffsets;
+import com.globex.dashboard.service.FreshnessTracker;
 import com.globex.dashboard.service.OrderState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.virtual.threads.VirtualThreads;
 import io.smallrye.reactive.messaging.annotations.Blocking;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordBatchMetadata;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 import org.jboss.logging.Logger;
 
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 @ApplicationScoped
 public class OrderConsumer {
     private static final Logger LOG = Logger.getLogger(OrderConsumer.class);
+    // Source table name, as used in freshness metrics and watermarks
+    private static final String TABLE = "orders";
 
     @Inject
     OrderState orderState;
 
     @Inject
-    ObjectMapper objectMapper;
+    DebeziumDecoder debeziumDecoder;
 
+    @Inject
+    AppliedOffsets appliedOffsets;
+
+    @Inject
+    FreshnessTracker freshness;
+
+    @Inject
+    MeterRegistry registry;
+
+    // Worker threads applying this channel's records in parallel, one lane per partition key; 0 applies
+    // every record on the channel's own thread
+    @ConfigProperty(name = "dashboard.ingest.lanes", defaultValue = "0")
+    int laneCount;
+
+    // Lanes run on virtual threads, on Java 21+ only
+    @ConfigProperty(name = "dashboard.ingest.virtual-threads", defaultValue = "false")
+    boolean virtualThreads;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreadExecutor;
+
+    private ConsumerMetrics metrics;
+    private IngestLanes lanes;
+
+    @PostConstruct
+    void init() {
+        metrics = new ConsumerMetrics(registry, "orders-in");
+        if (laneCount > 0) {
+            lanes = new IngestLanes("orders-in", laneCount,
+                    IngestLanes.laneExecutor("orders-in", virtualThreads, virtualThreadExecutor), registry);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (lanes != null) {
+            lanes.close();
+        }
+    }
+
+    // Payload is a single record, or a List of records when the channel runs with batch=true.
+    // Records are String, byte[] or ByteBuffer depending on the channel's value.deserializer.
     @Incoming("orders-in")
-    @Blocking
-    public void consume(String message) {
-        try {
-            DebeziumMessage debeziumMessage = objectMapper.readValue(message, DebeziumMessage.class);
-            
-            // Handle create (c), update (u), and read/snapshot (r) operations
-            String op = debeziumMessage.getOp();
-            if (op != null && ("c".equals(op) || "u".equals(op) || "r".equals(op))) {
-                
-                Object after = debeziumMessage.getAfter();
-                if (after != null) {
-                    ObjectNode orderNode = objectMapper.valueToTree(after);
-                    
-                    Order order = new Order();
-                    
-                    // Handle id - can be number or string
-                    if (orderNode.has("id")) {
-                        if (orderNode.get("id").isNumber()) {
-                            order.setId(String.valueOf(orderNode.get("id").asLong()));
-                        } else {
-                            order.setId(orderNode.get("id").asText());
-                        }
-                    }
-                    
-                    order.setCustomerId(getStringValue(orderNode, "customer_id"));
-                    
-                    // total_amount might not exist in the message - calculate from line items later or set to 0
-                    if (orderNode.has("total_amount")) {
-                        order.setTotalAmount(getDoubleValue(orderNode, "total_amount"));
-                    } else {
-                        // Will be calculated from line items when they arrive
-                        order.setTotalAmount(0.0);
-                    }
-                    
-                    // Handle order_ts (microseconds since epoch) instead of created_at
-                    if (orderNode.has("order_ts") && !orderNode.get("order_ts").isNull()) {
-                        try {
-                            long orderTsMicros = orderNode.get("order_ts").asLong();
-                            // Convert microseconds to Instant (divide by 1,000,000 to get seconds)
-                            order.setCreatedAt(Instant.ofEpochSecond(orderTsMicros / 1_000_000, 
-                                (orderTsMicros % 1_000_000) * 1_000));
-                        } catch (Exception e) {
-                            LOG.warnf("Failed to parse order_ts, using current time: %s", e.getMessage());
-                            order.setCreatedAt(Instant.now());
-                        }
-                    } else if (orderNode.has("created_at") && !orderNode.get("created_at").isNull()) {
-                        // Fallback to created_at if it exists
-                        String createdAtStr = getStringValue(orderNode, "created_at");
-                        try {
-                            order.setCreatedAt(Instant.parse(createdAtStr));
-                        } catch (Exception e) {
-                            order.setCreatedAt(Instant.now());
-                        }
-                    } else {
-                        order.setCreatedAt(Instant.now());
-                    }
-                    
-                    // Only upsert if order has a valid ID
-                    if (order.getId() != null && !order.getId().isEmpty()) {
-                        orderState.upsertOrder(order);
-                        LOG.infof("Processed order: %s (op: %s)", order.getId(), op);
-                    } else {
-                        LOG.warnf("Skipping order with null or empty ID (op: %s)", op);
-                    }
-                }
+    @Blocking("dashboard-ingest")
+    public void consume(Object payload, Optional<IncomingKafkaRecordMetadata<?, ?>> recordMetadata,
+                        Optional<IncomingKafkaRecordBatchMetadata<?, ?>> batchMetadata) {
+        if (payload instanceof List<?> batch) {
+            metrics.received(batch.size());
+            if (lanes != null && batchMetadata.isPresent()) {
+                lanes.executeBatch(batchMetadata.get(), (records, partition, lastOffset) ->
+                        applyBatch(records, () -> appliedOffsets.applied(partition, lastOffset)));
+            } else {
+                applyBatch(batch, () -> batchMetadata.ifPresent(appliedOffsets::applied));
+            }
+            return;
+        }
+        metrics.received(1);
+        IncomingKafkaRecordMetadata<?, ?> record = recordMetadata.orElse(null);
+        if (lanes == null) {
+            apply(payload, record);
+        } else if (record != null) {
+            lanes.execute(record.getPartition(), () -> apply(payload, record));
+        } else {
+            // No partition to go by (in-memory channels): decode here so each order stays on one lane
+            DebeziumEvent<Order> event = parse(payload);
+            if (event != null) {
+                lanes.execute(event.getAfter().getId().hashCode(), () -> apply(event, 0L));
             }
-        } catch (Exception e) {
-            LOG.errorf(e, "Error processing order message: %s", message);
         }
     }
 
-    private String getStringValue(ObjectNode node, String field) {
-        if (node.has(field) && !node.get(field).isNull()) {
-            return node.get(field).asText();
+    private void applyBatch(List<?> batch, Runnable onApplied) {
+        List<DebeziumEvent<Order>> events = new ArrayList<>(batch.size());
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (Object record : batch) {
+            DebeziumEvent<Order> event = parse(record);
+            if (event != null) {
+                events.add(event);
+                orders.add(event.getAfter());
+            }
         }
-        return null;
+        long applyStart = System.nanoTime();
+        orderState.upsertOrders(orders);
+        metrics.applied(applyStart);
+        // Kafka timestamps aren't matched to events in batch mode; Debezium's ts_ms stands in
+        for (DebeziumEvent<Order> event : events) {
+            freshness.applied(TABLE, event.getSourceTsMs(), event.getSourceLsn(), event.getTsMs(), 0L);
+        }
+        onApplied.run();
+        LOG.infof("Processed order batch: %d of %d records applied", orders.size(), batch.size());
     }
 
-    private double getDoubleValue(ObjectNode node, String field) {
-        if (node.has(field) && !node.get(field).isNull()) {
-            return node.get(field).asDouble();
+    private void apply(Object payload, IncomingKafkaRecordMetadata<?, ?> record) {
+        DebeziumEvent<Order> event = parse(payload);
+        if (event != null) {
+            apply(event, record != null && record.getTimestamp() != null ? record.getTimestamp().toEpochMilli() : 0L);
+        }
+        if (record != null) {
+            appliedOffsets.applied(record);
         }
-        return 0.0;
     }
-}
 
+    private void apply(DebeziumEvent<Order> event, long kafkaTsMs) {
+        long applyStart = System.nanoTime();
+        orderState.upsertOrder(event.getAfter());
+        metrics.applied(applyStart);
+        freshness.applied(TABLE, event.getSourceTsMs(), event.getSourceLsn(), event.getTsMs(), kafkaTsMs);
+    }
+
+    private DebeziumEvent<Order> parse(Object payload) {
+        long parseStart = System.nanoTime();
+        DebeziumEvent<Order> event = decode(payload);
+        metrics.parsed(parseStart);
+        return event;
+    }
+
+    // The decoded event when it carries a row to upsert, null otherwise
+    private DebeziumEvent<Order> decode(Object message) {
+        try {
+            DebeziumEvent<Order> event = debeziumDecoder.decodeOrder(message);
+            // Handle create (c), update (u), and read/snapshot (r) operations
+            Order order = event.getAfter();
+            if (!event.isUpsert() || order == null) {
+                return null;
+            }
+            // Only upsert if order has a valid ID
+            if (order.getId() == null || order.getId().isEmpty()) {
+                LOG.warnf("Skipping order with null or empty ID (op: %s)", event.getOp());
+                return null;
+            }
+            LOG.infof("Processed order: %s (op: %s)", order.getId(), event.getOp());
+            return event;
+        } catch (Exception e) {
+            metrics.parseFailed();
+            LOG.errorf(e, "Error processing order message: %s", DebeziumDecoder.toText(message));
+        }
+        return null;
+    }
+}
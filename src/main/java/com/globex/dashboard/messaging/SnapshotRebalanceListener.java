@@ -0,0 +1,51 @@
+package com.globex.dashboard.messaging;
+
+import com.globex.dashboard.service.AppliedOffsets;
+import com.globex.dashboard.service.StateSnapshots;
+import io.smallrye.common.annotation.Identifier;
+import io.smallrye.reactive.messaging.kafka.KafkaConsumerRebalanceListener;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Positions each assigned partition just past the last record already in OrderState (restored from
+// a snapshot or applied earlier in this process), instead of relying on the group's committed offsets.
+@ApplicationScoped
+@Identifier("dashboard-snapshot")
+public class SnapshotRebalanceListener implements KafkaConsumerRebalanceListener {
+    private static final Logger LOG = Logger.getLogger(SnapshotRebalanceListener.class);
+
+    @Inject
+    StateSnapshots stateSnapshots;
+
+    @Inject
+    AppliedOffsets appliedOffsets;
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!stateSnapshots.isEnabled()) {
+            return;
+        }
+        List<TopicPartition> unseen = new ArrayList<>();
+        for (TopicPartition partition : partitions) {
+            Long offset = appliedOffsets.lastApplied(partition);
+            if (offset != null) {
+                consumer.seek(partition, offset + 1);
+                LOG.infof("Resuming %s at offset %d", partition, offset + 1);
+            } else {
+                unseen.add(partition);
+            }
+        }
+        // Nothing of these partitions is in memory yet, so they have to be read from the start
+        if (!unseen.isEmpty()) {
+            consumer.seekToBeginning(unseen);
+            LOG.infof("Reading %s from the beginning", unseen);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.globex.dashboard.model;
+
+import java.util.List;
+
+// One customer's profile, lifetime spend and a page of their orders, newest first. Spend, points and
+// order count include orders evicted from the dashboard; recentOrders only lists those still held.
+// nextCursor continues the order history and is null on its last page.
+public class CustomerView {
+    private String customerId;
+    private String name;
+    private String email;
+    private double totalSpend;
+    private long loyaltyPoints;
+    private int orderCount;
+    private List<OrderView> recentOrders;
+    private String nextCursor;
+
+    public CustomerView() {
+    }
+
+    public CustomerView(String customerId, String name, String email, double totalSpend, long loyaltyPoints,
+                        int orderCount, List<OrderView> recentOrders, String nextCursor) {
+        this.customerId = customerId;
+        this.name = name;
+        this.email = email;
+        this.totalSpend = totalSpend;
+        this.loyaltyPoints = loyaltyPoints;
+        this.orderCount = orderCount;
+        this.recentOrders = recentOrders;
+        this.nextCursor = nextCursor;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public double getTotalSpend() {
+        return totalSpend;
+    }
+
+    public void setTotalSpend(double totalSpend) {
+        this.totalSpend = totalSpend;
+    }
+
+    public long getLoyaltyPoints() {
+        return loyaltyPoints;
+    }
+
+    public void setLoyaltyPoints(long loyaltyPoints) {
+        this.loyaltyPoints = loyaltyPoints;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(int orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public List<OrderView> getRecentOrders() {
+        return recentOrders;
+    }
+
+    public void setRecentOrders(List<OrderView> recentOrders) {
+        this.recentOrders = recentOrders;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,76 @@
+package com.globex.dashboard.model;
+
+import java.util.List;
+
+// Incremental change pushed to the orders & loyalty dashboard. When reset is true the client
+// refetches the full views instead of merging. removedOrderIds are orders that have left the recent
+// orders list (evicted, or moved out of it) and are dropped from it.
+public class DashboardUpdate {
+    private long version;
+    private boolean reset;
+    private List<OrderView> orders;
+    private List<String> removedOrderIds;
+    private List<LoyaltyView> loyalty;
+    private List<String> removedCustomerIds;
+
+    public DashboardUpdate() {
+    }
+
+    public DashboardUpdate(long version, boolean reset, List<OrderView> orders, List<String> removedOrderIds,
+                           List<LoyaltyView> loyalty, List<String> removedCustomerIds) {
+        this.version = version;
+        this.reset = reset;
+        this.orders = orders;
+        this.removedOrderIds = removedOrderIds;
+        this.loyalty = loyalty;
+        this.removedCustomerIds = removedCustomerIds;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+
+    public List<OrderView> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<OrderView> orders) {
+        this.orders = orders;
+    }
+
+    public List<String> getRemovedOrderIds() {
+        return removedOrderIds;
+    }
+
+    public void setRemovedOrderIds(List<String> removedOrderIds) {
+        this.removedOrderIds = removedOrderIds;
+    }
+
+    public List<LoyaltyView> getLoyalty() {
+        return loyalty;
+    }
+
+    public void setLoyalty(List<LoyaltyView> loyalty) {
+        this.loyalty = loyalty;
+    }
+
+    public List<String> getRemovedCustomerIds() {
+        return removedCustomerIds;
+    }
+
+    public void setRemovedCustomerIds(List<String> removedCustomerIds) {
+        this.removedCustomerIds = removedCustomerIds;
+    }
+}
@@ -0,0 +1,52 @@
+package com.globex.dashboard.model;
+
+// Units sold and revenue for one product across all line items. Estimated totals come from the
+// sketch fallback and may overcount, never undercount.
+public class ProductSalesView {
+    private String productName;
+    private long quantity;
+    private double revenue;
+    private boolean estimated;
+
+    public ProductSalesView() {
+    }
+
+    public ProductSalesView(String productName, long quantity, double revenue, boolean estimated) {
+        this.productName = productName;
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.estimated = estimated;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+
+    public boolean isEstimated() {
+        return estimated;
+    }
+
+    public void setEstimated(boolean estimated) {
+        this.estimated = estimated;
+    }
+}
@@ -0,0 +1,53 @@
+package com.globex.dashboard.model;
+
+import java.time.Instant;
+
+// Orders created within one tumbling window, starting at `start`
+public class RevenueBucket {
+    private Instant start;
+    private long orderCount;
+    private double revenue;
+    private double averageBasket;
+
+    public RevenueBucket() {
+    }
+
+    public RevenueBucket(Instant start, long orderCount, double revenue) {
+        this.start = start;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+        this.averageBasket = orderCount > 0 ? revenue / orderCount : 0.0;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public void setStart(Instant start) {
+        this.start = start;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+
+    public double getAverageBasket() {
+        return averageBasket;
+    }
+
+    public void setAverageBasket(double averageBasket) {
+        this.averageBasket = averageBasket;
+    }
+}
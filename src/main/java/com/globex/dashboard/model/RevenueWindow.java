@@ -0,0 +1,75 @@
+package com.globex.dashboard.model;
+
+import java.util.List;
+
+// Order count and revenue by createdAt at one granularity: the sliding total over the whole span
+// (e.g. the last 60 minutes) and its tumbling buckets, newest first
+public class RevenueWindow {
+    private String granularity;
+    private long bucketSeconds;
+    private long orderCount;
+    private double revenue;
+    private double averageBasket;
+    private List<RevenueBucket> buckets;
+
+    public RevenueWindow() {
+    }
+
+    public RevenueWindow(String granularity, long bucketSeconds, long orderCount, double revenue,
+                         List<RevenueBucket> buckets) {
+        this.granularity = granularity;
+        this.bucketSeconds = bucketSeconds;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+        this.averageBasket = orderCount > 0 ? revenue / orderCount : 0.0;
+        this.buckets = buckets;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public long getBucketSeconds() {
+        return bucketSeconds;
+    }
+
+    public void setBucketSeconds(long bucketSeconds) {
+        this.bucketSeconds = bucketSeconds;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+
+    public double getAverageBasket() {
+        return averageBasket;
+    }
+
+    public void setAverageBasket(double averageBasket) {
+        this.averageBasket = averageBasket;
+    }
+
+    public List<RevenueBucket> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<RevenueBucket> buckets) {
+        this.buckets = buckets;
+    }
+}
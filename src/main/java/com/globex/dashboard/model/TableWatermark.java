@@ -0,0 +1,75 @@
+package com.globex.dashboard.model;
+
+import java.time.Instant;
+
+// Newest change applied from one source table: its commit time and log position in Postgres,
+// when it reached Kafka, when the dashboard applied it, and the commit-to-apply lag
+public class TableWatermark {
+    private String table;
+    private Instant sourceTimestamp;
+    private Long sourceLsn;
+    private Instant kafkaTimestamp;
+    private Instant appliedAt;
+    private Long lagMillis;
+
+    public TableWatermark() {
+    }
+
+    public TableWatermark(String table, Instant sourceTimestamp, Long sourceLsn, Instant kafkaTimestamp,
+                          Instant appliedAt, Long lagMillis) {
+        this.table = table;
+        this.sourceTimestamp = sourceTimestamp;
+        this.sourceLsn = sourceLsn;
+        this.kafkaTimestamp = kafkaTimestamp;
+        this.appliedAt = appliedAt;
+        this.lagMillis = lagMillis;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public Instant getSourceTimestamp() {
+        return sourceTimestamp;
+    }
+
+    public void setSourceTimestamp(Instant sourceTimestamp) {
+        this.sourceTimestamp = sourceTimestamp;
+    }
+
+    public Long getSourceLsn() {
+        return sourceLsn;
+    }
+
+    public void setSourceLsn(Long sourceLsn) {
+        this.sourceLsn = sourceLsn;
+    }
+
+    public Instant getKafkaTimestamp() {
+        return kafkaTimestamp;
+    }
+
+    public void setKafkaTimestamp(Instant kafkaTimestamp) {
+        this.kafkaTimestamp = kafkaTimestamp;
+    }
+
+    public Instant getAppliedAt() {
+        return appliedAt;
+    }
+
+    public void setAppliedAt(Instant appliedAt) {
+        this.appliedAt = appliedAt;
+    }
+
+    public Long getLagMillis() {
+        return lagMillis;
+    }
+
+    public void setLagMillis(Long lagMillis) {
+        this.lagMillis = lagMillis;
+    }
+}
@@ -0,0 +1,55 @@
+package com.globex.dashboard.model;
+
+import java.util.List;
+
+// Incremental change pushed to the warehouse dashboard. When reset is true the client
+// refetches the full pick list instead of merging. removedOrderIds are orders that have left the
+// pick list (evicted, or moved out of it) and are dropped from it.
+public class WarehouseUpdate {
+    private long version;
+    private boolean reset;
+    private List<WarehouseView> orders;
+    private List<String> removedOrderIds;
+
+    public WarehouseUpdate() {
+    }
+
+    public WarehouseUpdate(long version, boolean reset, List<WarehouseView> orders, List<String> removedOrderIds) {
+        this.version = version;
+        this.reset = reset;
+        this.orders = orders;
+        this.removedOrderIds = removedOrderIds;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+
+    public List<WarehouseView> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<WarehouseView> orders) {
+        this.orders = orders;
+    }
+
+    public List<String> getRemovedOrderIds() {
+        return removedOrderIds;
+    }
+
+    public void setRemovedOrderIds(List<String> removedOrderIds) {
+        this.removedOrderIds = removedOrderIds;
+    }
+}
@@ -21,6 +21,15 @@ public class WarehouseView {
         this.totalItems = items != null ? items.stream().mapToInt(LineItemView::getQuantity).sum() : 0;
     }
 
+    // For callers that summed the quantities while building the items
+    public WarehouseView(String orderId, String customerName, Instant createdAt, List<LineItemView> items, int totalItems) {
+        this.orderId = orderId;
+        this.customerName = customerName;
+        this.createdAt = createdAt;
+        this.items = items;
+        this.totalItems = totalItems;
+    }
+
     public String getOrderId() {
         return orderId;
     }
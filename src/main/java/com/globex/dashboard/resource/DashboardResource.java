@@ -1,64 +1,257 @@
 package com.globex.dashboard.resource;
 
-import com.globex.dashboard.model.LoyaltyView;
-import com.globex.dashboard.model.OrderView;
-import com.globex.dashboard.model.WarehouseView;
+import com.globex.dashboard.model.CustomerView;
+import com.globex.dashboard.model.Page;
+import com.globex.dashboard.model.RevenueWindow;
+import com.globex.dashboard.model.TableWatermark;
+import com.globex.dashboard.service.FreshnessTracker;
 import com.globex.dashboard.service.OrderState;
+import io.quarkus.virtual.threads.VirtualThreads;
+import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 @Path("/api")
 public class DashboardResource {
 
+    private static final int DEBUG_SAMPLE_SIZE = 20;
+
     @Inject
     OrderState orderState;
 
+    @Inject
+    ViewCache viewCache;
+
+    @Inject
+    FreshnessTracker freshness;
+
+    // Endpoint bodies run here: a virtual thread per request when quarkus.virtual-threads.enabled is
+    // true on Java 21+, the worker pool otherwise
+    @Inject
+    @VirtualThreads
+    ExecutorService executor;
+
+    // Page sizes for requests without a limit; 0 serves the whole view in one response
+    @ConfigProperty(name = "dashboard.api.orders.limit", defaultValue = "50")
+    int ordersLimit;
+
+    @ConfigProperty(name = "dashboard.api.warehouse.limit", defaultValue = "100")
+    int warehouseLimit;
+
+    @ConfigProperty(name = "dashboard.api.loyalty.limit", defaultValue = "0")
+    int loyaltyLimit;
+
+    @ConfigProperty(name = "dashboard.api.products.limit", defaultValue = "20")
+    int productsLimit;
+
+    // Upper bound for a requested limit
+    @ConfigProperty(name = "dashboard.api.max-limit", defaultValue = "1000")
+    int maxLimit;
+
     @GET
     @Path("/orders")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<OrderView> getOrders() {
-        return orderState.getRecentOrders(50);
+    public Uni<Response> getOrders(@QueryParam("limit") Integer limit,
+                                   @QueryParam("cursor") String cursor,
+                                   @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                   @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        int pageSize = pageSize(limit, ordersLimit);
+        return offload(() -> respondPage("orders", limit, cursor,
+                () -> page(() -> orderState.getRecentOrdersPage(pageSize, cursor)), ifNoneMatch, acceptEncoding));
+    }
+
+    // Orders filtered by customer, createdAt range [from, to) as ISO-8601 instants and minimum total,
+    // newest first and paged like /orders; repeat the filters along with the cursor. With minTotal as
+    // the only filter, results come highest total first instead.
+    @GET
+    @Path("/orders/search")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> searchOrders(@QueryParam("customerId") String customerId,
+                                      @QueryParam("from") String from,
+                                      @QueryParam("to") String to,
+                                      @QueryParam("minTotal") Double minTotal,
+                                      @QueryParam("limit") Integer limit,
+                                      @QueryParam("cursor") String cursor,
+                                      @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                      @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        int pageSize = pageSize(limit, ordersLimit);
+        Instant fromInstant = instant("from", from);
+        Instant toInstant = instant("to", to);
+        // Ad-hoc filters would give every search its own cache key, so searches are never cached
+        return offload(() -> viewCache.respondUncached("orders-search",
+                () -> page(() -> orderState.findOrders(customerId, fromInstant, toInstant, minTotal, pageSize, cursor)),
+                ifNoneMatch, acceptEncoding));
+    }
+
+    // A customer's profile, lifetime spend and order history, paged by ?limit= and ?cursor= like /orders
+    // except that the next cursor is the body's nextCursor
+    @GET
+    @Path("/customers/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> getCustomer(@PathParam("id") String customerId,
+                                     @QueryParam("limit") Integer limit,
+                                     @QueryParam("cursor") String cursor,
+                                     @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                     @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        int pageSize = pageSize(limit, ordersLimit);
+        // One cache key per customer id would be unbounded, so lookups are never cached
+        return offload(() -> viewCache.respondUncached("customer", () -> {
+            CustomerView customer;
+            try {
+                customer = orderState.getCustomer(customerId, pageSize, cursor);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Malformed cursor");
+            }
+            if (customer == null) {
+                throw new NotFoundException("No customer " + customerId);
+            }
+            return customer;
+        }, ifNoneMatch, acceptEncoding));
     }
 
     @GET
     @Path("/loyalty")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<LoyaltyView> getLoyalty() {
-        return orderState.getLoyaltyByCustomer();
+    public Uni<Response> getLoyalty(@QueryParam("limit") Integer limit,
+                                    @QueryParam("cursor") String cursor,
+                                    @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                    @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        int pageSize = pageSize(limit, loyaltyLimit);
+        return offload(() -> respondPage("loyalty", limit, cursor,
+                () -> page(() -> orderState.getLoyaltyPage(pageSize, cursor)), ifNoneMatch, acceptEncoding));
     }
 
     @GET
     @Path("/warehouse")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<WarehouseView> getWarehouseOrders() {
-        return orderState.getWarehouseOrders(100);
+    public Uni<Response> getWarehouseOrders(@QueryParam("limit") Integer limit,
+                                            @QueryParam("cursor") String cursor,
+                                            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                            @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        int pageSize = pageSize(limit, warehouseLimit);
+        return offload(() -> respondPage("warehouse", limit, cursor,
+                () -> page(() -> orderState.getWarehouseOrdersPage(pageSize, cursor)), ifNoneMatch, acceptEncoding));
+    }
+
+    // Newest applied change per source table, for telling how far the dashboard trails Postgres
+    @GET
+    @Path("/freshness")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<List<TableWatermark>> getFreshness() {
+        return offload(freshness::getWatermarks);
+    }
+
+    // Best-selling products by units sold (by=quantity, the default) or by revenue (by=revenue)
+    @GET
+    @Path("/products/top")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> getTopProducts(@QueryParam("by") String by,
+                                        @QueryParam("limit") Integer limit,
+                                        @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                        @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        int topK = pageSize(limit, productsLimit);
+        boolean byRevenue;
+        if (by == null || "quantity".equals(by)) {
+            byRevenue = false;
+        } else if ("revenue".equals(by)) {
+            byRevenue = true;
+        } else {
+            throw new BadRequestException("by must be quantity or revenue");
+        }
+        return offload(() -> respondPage(byRevenue ? "products-revenue" : "products-quantity", limit, null,
+                () -> byRevenue ? orderState.getTopProductsByRevenue(topK) : orderState.getTopProductsByQuantity(topK),
+                ifNoneMatch, acceptEncoding));
+    }
+
+    // Order rate and revenue by createdAt: sliding totals plus per-minute, hourly and daily buckets
+    @GET
+    @Path("/metrics/revenue")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<List<RevenueWindow>> getRevenue() {
+        return offload(orderState::getRevenueWindows);
     }
 
     @GET
     @Path("/debug")
     @Produces(MediaType.APPLICATION_JSON)
-    public Map<String, Object> getDebugInfo() {
+    public Uni<Map<String, Object>> getDebugInfo() {
+        return offload(this::debugInfo);
+    }
+
+    // Counts and bounded samples only, so the response stays small however many ids there are
+    private Map<String, Object> debugInfo() {
         Map<String, Object> debug = new HashMap<>();
         debug.put("customerCount", orderState.getCustomerCount());
         debug.put("orderCount", orderState.getOrderCount());
-        debug.put("customerIds", orderState.getCustomerIds());
-        debug.put("orderCustomerIds", orderState.getOrderCustomerIds());
-        
-        // Show which order customer IDs don't have matching customers
-        Set<String> customerIds = orderState.getCustomerIds();
-        Set<String> orderCustomerIds = orderState.getOrderCustomerIds();
-        Set<String> missingCustomers = new java.util.HashSet<>(orderCustomerIds);
-        missingCustomers.removeAll(customerIds);
-        debug.put("missingCustomerIds", missingCustomers);
-        
+        debug.put("evictedOrderCount", orderState.getEvictedOrderCount());
+        debug.put("orderCustomerCount", orderState.getOrderCustomerCount());
+        // Customers referenced by orders that don't have a customer record yet
+        debug.put("missingCustomerCount", orderState.getMissingCustomerCount());
+        debug.put("orphanOrderCount", orderState.getOrphanOrderCount());
+        debug.put("missingCustomerIdsSample", orderState.sampleMissingCustomerIds(DEBUG_SAMPLE_SIZE));
+        debug.put("orphanOrderIdsSample", orderState.sampleOrphanOrderIds(DEBUG_SAMPLE_SIZE));
         return debug;
     }
-}
 
+    private int pageSize(Integer requested, int defaultLimit) {
+        if (requested == null) {
+            return defaultLimit;
+        }
+        if (requested < 1) {
+            throw new BadRequestException("limit must be at least 1");
+        }
+        return Math.min(requested, maxLimit);
+    }
+
+    private static Instant instant(String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(name + " must be an ISO-8601 instant");
+        }
+    }
+
+    // Only the default first page, the one every dashboard polls, is kept in the view cache; a
+    // cursor or explicit limit would make each request its own key and churn the cache
+    private Response respondPage(String view, Integer limit, String cursor, Supplier<?> builder,
+                                 String ifNoneMatch, String acceptEncoding) {
+        if (limit == null && cursor == null) {
+            return viewCache.respond(view, builder, ifNoneMatch, acceptEncoding);
+        }
+        return viewCache.respondUncached(view, builder, ifNoneMatch, acceptEncoding);
+    }
+
+    private static <T> Page<T> page(Supplier<Page<T>> query) {
+        try {
+            return query.get();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Malformed cursor");
+        }
+    }
+
+    private <T> Uni<T> offload(Supplier<T> body) {
+        return Uni.createFrom().item(body).runSubscriptionOn(executor);
+    }
+}
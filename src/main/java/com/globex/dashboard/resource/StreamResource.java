@@ -0,0 +1,34 @@
+package com.globex.dashboard.resource;
+
+import com.globex.dashboard.service.DashboardStream;
+import io.smallrye.mutiny.Multi;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+
+// Server-sent view deltas; each event's data is a pre-serialized JSON update
+@Path("/api/stream")
+public class StreamResource {
+
+    @Inject
+    DashboardStream dashboardStream;
+
+    @GET
+    @Path("/dashboard")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.TEXT_PLAIN)
+    public Multi<String> dashboardUpdates() {
+        return dashboardStream.dashboardUpdates();
+    }
+
+    @GET
+    @Path("/warehouse")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.TEXT_PLAIN)
+    public Multi<String> warehouseUpdates() {
+        return dashboardStream.warehouseUpdates();
+    }
+}
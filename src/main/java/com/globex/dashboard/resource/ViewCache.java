@@ -0,0 +1,163 @@
+package com.globex.dashboard.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.globex.dashboard.model.Page;
+import com.globex.dashboard.service.FreshnessTracker;
+import com.globex.dashboard.service.OrderState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.logging.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// Serialized JSON (plain and gzip) for each dashboard view, rebuilt only when the OrderState version
+// moves. Clients revalidate with If-None-Match and get a 304 while nothing has changed.
+// A view built as a Page is served as its items, with the next page's cursor in X-Next-Cursor.
+@ApplicationScoped
+public class ViewCache {
+    private static final Logger LOG = Logger.getLogger(ViewCache.class);
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+    // Views are keyed by name plus page size; drop everything if clients spray distinct keys anyway
+    private static final int MAX_ENTRIES = 256;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    OrderState orderState;
+
+    @Inject
+    FreshnessTracker freshness;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Map<String, CachedView> views = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> buildLocks = new ConcurrentHashMap<>();
+    // Versions restart at zero with the process, so ETags carry the start time to stay unique
+    private final String etagPrefix = Long.toHexString(System.currentTimeMillis());
+
+    public Response respond(String key, Supplier<?> viewBuilder, String ifNoneMatch, String acceptEncoding) {
+        long version = orderState.getVersion();
+        CachedView view = views.get(key);
+        if (view == null || view.version != version) {
+            if (views.size() >= MAX_ENTRIES) {
+                views.clear();
+                buildLocks.clear();
+            }
+            // One caller rebuilds a stale view; concurrent pollers for the same key wait and reuse it.
+            // Waiting on a ReentrantLock rather than inside ConcurrentHashMap.compute keeps virtual
+            // threads from pinning their carriers for the length of a build.
+            ReentrantLock lock = buildLocks.computeIfAbsent(key, k -> new ReentrantLock());
+            lock.lock();
+            try {
+                view = views.get(key);
+                if (view == null || view.version < version) {
+                    view = build(key, version, viewBuilder);
+                    views.put(key, view);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return toResponse(view, ifNoneMatch, acceptEncoding);
+    }
+
+    // For views whose keys callers choose freely (cursors, ad-hoc filters): built for this request and
+    // not kept, so they can't crowd the shared dashboard views out of the cache
+    public Response respondUncached(String name, Supplier<?> viewBuilder, String ifNoneMatch, String acceptEncoding) {
+        return toResponse(build(name, orderState.getVersion(), viewBuilder), ifNoneMatch, acceptEncoding);
+    }
+
+    private static Response toResponse(CachedView view, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? view.gzipEtag : view.etag;
+        if (ifNoneMatch != null && (ifNoneMatch.contains(view.etag) || ifNoneMatch.contains(view.gzipEtag))) {
+            return Response.notModified()
+                    .header(HttpHeaders.ETAG, etag)
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .header(NEXT_CURSOR, view.nextCursor)
+                    .build();
+        }
+        Response.ResponseBuilder response = Response.ok(gzip ? view.gzipBody : view.body, MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.ETAG, etag)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(NEXT_CURSOR, view.nextCursor);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.build();
+    }
+
+    private CachedView build(String key, long version, Supplier<?> viewBuilder) {
+        long start = System.nanoTime();
+        try {
+            Object content = viewBuilder.get();
+            String nextCursor = null;
+            if (content instanceof Page<?> page) {
+                nextCursor = page.getNextCursor();
+                content = page.getItems();
+            }
+            byte[] body = objectMapper.writeValueAsBytes(content);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(body.length / 4, 64));
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(body);
+            }
+            CachedView view = new CachedView(version, body, compressed.toByteArray(), etagPrefix + "-v" + version,
+                    nextCursor);
+            buildTimer(key).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            freshness.served(version);
+            return view;
+        } catch (IOException e) {
+            LOG.errorf(e, "Failed to serialize view at version %d", version);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Tagged by view name only; query parameters after ':' would make the tag unbounded
+    private Timer buildTimer(String key) {
+        int separator = key.indexOf(':');
+        return Timer.builder("dashboard.view.build")
+                .description("Time to build, serialize and compress a dashboard view")
+                .tag("view", separator < 0 ? key : key.substring(0, separator))
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static final class CachedView {
+        private final long version;
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final String etag;
+        private final String gzipEtag;
+        private final String nextCursor;
+
+        private CachedView(long version, byte[] body, byte[] gzipBody, String tag, String nextCursor) {
+            this.version = version;
+            this.body = body;
+            this.gzipBody = gzipBody;
+            this.etag = "\"" + tag + "\"";
+            this.gzipEtag = "\"" + tag + "-gzip\"";
+            this.nextCursor = nextCursor;
+        }
+    }
+}
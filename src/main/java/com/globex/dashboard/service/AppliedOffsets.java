@@ -0,0 +1,45 @@
+package com.globex.dashboard.service;
+
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordBatchMetadata;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Highest Kafka offset per partition whose record has been applied to OrderState
+@ApplicationScoped
+public class AppliedOffsets {
+    private final Map<TopicPartition, Long> offsets = new ConcurrentHashMap<>();
+
+    public void applied(IncomingKafkaRecordMetadata<?, ?> record) {
+        applied(new TopicPartition(record.getTopic(), record.getPartition()), record.getOffset());
+    }
+
+    public void applied(IncomingKafkaRecordBatchMetadata<?, ?> batch) {
+        ConsumerRecords<?, ?> records = batch.getRecords();
+        for (TopicPartition partition : records.partitions()) {
+            List<? extends ConsumerRecord<?, ?>> partitionRecords = records.records(partition);
+            if (!partitionRecords.isEmpty()) {
+                applied(partition, partitionRecords.get(partitionRecords.size() - 1).offset());
+            }
+        }
+    }
+
+    public void applied(TopicPartition partition, long offset) {
+        offsets.merge(partition, offset, Math::max);
+    }
+
+    public Long lastApplied(TopicPartition partition) {
+        return offsets.get(partition);
+    }
+
+    public Map<TopicPartition, Long> copy() {
+        return new HashMap<>(offsets);
+    }
+}
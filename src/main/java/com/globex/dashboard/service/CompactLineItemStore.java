@@ -0,0 +1,468 @@
+package com.globex.dashboard.service;
+
+import com.globex.dashboard.model.LineItem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+// Line items with numeric ids kept as columns (struct of arrays) instead of one object graph per
+// item: an item costs a few primitive array cells, and product names are interned to int codes.
+// Each order's items form a linked chain of slots, found through a long-keyed open-addressing map.
+// Items whose order id or own id isn't a plain decimal long go to an ObjectLineItemStore.
+final class CompactLineItemStore implements LineItemStore {
+    private static final int SHARDS = 64;
+    private static final int NO_SLOT = -1;
+    private static final int NO_PRODUCT = -1;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final ObjectLineItemStore fallback = new ObjectLineItemStore();
+    private final ProductDictionary products = new ProductDictionary();
+
+    CompactLineItemStore() {
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    @Override
+    public LineItem upsert(LineItem lineItem) {
+        long orderId = parseId(lineItem.getOrderId());
+        long id = parseId(lineItem.getId());
+        if (orderId == LongIntHashMap.EMPTY_KEY || id == LongIntHashMap.EMPTY_KEY) {
+            return fallback.upsert(lineItem);
+        }
+        int productCode = products.codeOf(lineItem.getProductName());
+        return shardOf(orderId).upsert(orderId, id, lineItem, productCode);
+    }
+
+    @Override
+    public List<LineItem> get(String orderId) {
+        long numericId = parseId(orderId);
+        if (numericId == LongIntHashMap.EMPTY_KEY) {
+            return fallback.get(orderId);
+        }
+        List<LineItem> compact = shardOf(numericId).get(numericId, orderId);
+        List<LineItem> other = fallback.get(orderId);
+        if (other.isEmpty()) {
+            return compact;
+        }
+        List<LineItem> merged = new ArrayList<>(compact.size() + other.size());
+        merged.addAll(compact);
+        merged.addAll(other);
+        return merged;
+    }
+
+    @Override
+    public int count(String orderId) {
+        long numericId = parseId(orderId);
+        int count = fallback.count(orderId);
+        return numericId == LongIntHashMap.EMPTY_KEY ? count : count + shardOf(numericId).count(numericId);
+    }
+
+    @Override
+    public double total(String orderId) {
+        long numericId = parseId(orderId);
+        double total = fallback.total(orderId);
+        return numericId == LongIntHashMap.EMPTY_KEY ? total : total + shardOf(numericId).total(numericId);
+    }
+
+    @Override
+    public void removeOrder(String orderId) {
+        fallback.removeOrder(orderId);
+        long numericId = parseId(orderId);
+        if (numericId != LongIntHashMap.EMPTY_KEY) {
+            shardOf(numericId).removeOrder(numericId);
+        }
+    }
+
+    @Override
+    public long size() {
+        long size = fallback.size();
+        for (Shard shard : shards) {
+            size += shard.size;
+        }
+        return size;
+    }
+
+    @Override
+    public void forEachOrder(OrderVisitor visitor) throws IOException {
+        for (Shard shard : shards) {
+            // Copy the shard's order ids first so no lock is held while the visitor does I/O
+            for (long numericId : shard.orderIds()) {
+                String orderId = Long.toString(numericId);
+                List<LineItem> lineItems = get(orderId);
+                if (!lineItems.isEmpty()) {
+                    visitor.visit(orderId, lineItems);
+                }
+            }
+        }
+        // Orders split across both stores were already visited with their merged items
+        fallback.forEachOrder((orderId, lineItems) -> {
+            long numericId = parseId(orderId);
+            if (numericId == LongIntHashMap.EMPTY_KEY || shardOf(numericId).count(numericId) == 0) {
+                visitor.visit(orderId, lineItems);
+            }
+        });
+    }
+
+    private Shard shardOf(long orderId) {
+        long h = orderId * 0x9E3779B97F4A7C15L;
+        return shards[(int) (h >>> 58)];
+    }
+
+    // The id as a long if it is in canonical decimal form (so it renders back to the same string),
+    // EMPTY_KEY otherwise
+    static long parseId(String id) {
+        if (id == null || id.isEmpty() || id.length() > 20) {
+            return LongIntHashMap.EMPTY_KEY;
+        }
+        int start = id.charAt(0) == '-' ? 1 : 0;
+        if (start == id.length() || (id.charAt(start) == '0' && (id.length() > start + 1 || start == 1))) {
+            return LongIntHashMap.EMPTY_KEY;
+        }
+        for (int i = start; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return LongIntHashMap.EMPTY_KEY;
+            }
+        }
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return LongIntHashMap.EMPTY_KEY;
+        }
+    }
+
+    // Writers hold OrderState's stripe lock plus the shard's write lock; readers try an optimistic
+    // read first and only fall back to the read lock if a write raced with them.
+    // An order record keeps the ends of its item chain, the item count and a running total, so an
+    // upsert finds its slot through the (record, item id) index and adjusts the total by the delta.
+    private final class Shard {
+        private final StampedLock lock = new StampedLock();
+        private final LongIntHashMap recordByOrder = new LongIntHashMap(64);
+        // Order records; released records are chained through heads
+        private int[] heads = new int[16];
+        private int[] tails = new int[16];
+        private int[] counts = new int[16];
+        private double[] totals = new double[16];
+        private int recordsUsed;
+        private int freeRecord = NO_SLOT;
+        // Item slots
+        private long[] ids = new long[64];
+        private int[] records = new int[64];
+        private int[] productCodes = new int[64];
+        private int[] quantities = new int[64];
+        private double[] unitPrices = new double[64];
+        // Next slot in the same order's chain, or in the free list for released slots
+        private int[] next = new int[64];
+        private int used;
+        private int freeHead = NO_SLOT;
+        // Live items, read without the lock for metrics
+        private volatile int size;
+        // Open-addressing index of (record, item id) -> slot + 1, 0 marking an empty cell.
+        // Keys live in the columns, so the index is one int per cell. Only writers use it.
+        private int[] index = new int[128];
+        private int indexSize;
+
+        // The replaced item is only materialized as an object on updates, never on appends
+        LineItem upsert(long orderId, long id, LineItem lineItem, int productCode) {
+            int quantity = lineItem.getQuantity();
+            double unitPrice = lineItem.getUnitPrice();
+            long stamp = lock.writeLock();
+            try {
+                int record = recordByOrder.get(orderId, NO_SLOT);
+                if (record == NO_SLOT) {
+                    record = allocateRecord();
+                    recordByOrder.put(orderId, record);
+                }
+                double amount = unitPrice * quantity;
+                int slot = findSlot(record, id);
+                if (slot != NO_SLOT) {
+                    LineItem replaced = new LineItem(lineItem.getId(), lineItem.getOrderId(),
+                            products.nameOf(productCodes[slot]), quantities[slot], unitPrices[slot]);
+                    totals[record] += amount - unitPrices[slot] * quantities[slot];
+                    productCodes[slot] = productCode;
+                    quantities[slot] = quantity;
+                    unitPrices[slot] = unitPrice;
+                    return replaced;
+                }
+                slot = allocateSlot();
+                ids[slot] = id;
+                records[slot] = record;
+                productCodes[slot] = productCode;
+                quantities[slot] = quantity;
+                unitPrices[slot] = unitPrice;
+                next[slot] = NO_SLOT;
+                if (tails[record] == NO_SLOT) {
+                    heads[record] = slot;
+                } else {
+                    next[tails[record]] = slot;
+                }
+                tails[record] = slot;
+                counts[record]++;
+                totals[record] += amount;
+                addToIndex(slot);
+                size++;
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        List<LineItem> get(long orderId, String orderIdText) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0L) {
+                try {
+                    List<LineItem> lineItems = readChain(orderId, orderIdText);
+                    if (lock.validate(stamp)) {
+                        return lineItems;
+                    }
+                } catch (RuntimeException e) {
+                    // Torn read of arrays being resized or slots being relinked; retry under the lock
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return readChain(orderId, orderIdText);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        int count(long orderId) {
+            long stamp = lock.tryOptimisticRead();
+            try {
+                int record = recordByOrder.get(orderId, NO_SLOT);
+                int count = record != NO_SLOT ? counts[record] : 0;
+                if (lock.validate(stamp)) {
+                    return count;
+                }
+            } catch (RuntimeException e) {
+                // Torn read; retry under the lock
+            }
+            stamp = lock.readLock();
+            try {
+                int record = recordByOrder.get(orderId, NO_SLOT);
+                return record != NO_SLOT ? counts[record] : 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        double total(long orderId) {
+            long stamp = lock.tryOptimisticRead();
+            try {
+                int record = recordByOrder.get(orderId, NO_SLOT);
+                double total = record != NO_SLOT ? totals[record] : 0.0;
+                if (lock.validate(stamp)) {
+                    return total;
+                }
+            } catch (RuntimeException e) {
+                // Torn read; retry under the lock
+            }
+            stamp = lock.readLock();
+            try {
+                int record = recordByOrder.get(orderId, NO_SLOT);
+                return record != NO_SLOT ? totals[record] : 0.0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void removeOrder(long orderId) {
+            long stamp = lock.writeLock();
+            try {
+                int record = recordByOrder.remove(orderId, NO_SLOT);
+                if (record == NO_SLOT) {
+                    return;
+                }
+                int slot = heads[record];
+                while (slot != NO_SLOT) {
+                    int following = next[slot];
+                    removeFromIndex(slot);
+                    next[slot] = freeHead;
+                    freeHead = slot;
+                    slot = following;
+                }
+                size -= counts[record];
+                heads[record] = freeRecord;
+                freeRecord = record;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        long[] orderIds() {
+            long stamp = lock.readLock();
+            try {
+                return recordByOrder.keys();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private List<LineItem> readChain(long orderId, String orderIdText) {
+            int record = recordByOrder.get(orderId, NO_SLOT);
+            if (record == NO_SLOT || counts[record] == 0) {
+                return List.of();
+            }
+            List<LineItem> lineItems = new ArrayList<>(counts[record]);
+            // The bound stops a chain corrupted by a racing write from looping; validate() rejects it
+            for (int slot = heads[record], steps = 0; slot != NO_SLOT && steps <= used; slot = next[slot], steps++) {
+                lineItems.add(new LineItem(Long.toString(ids[slot]), orderIdText,
+                        products.nameOf(productCodes[slot]), quantities[slot], unitPrices[slot]));
+            }
+            return lineItems;
+        }
+
+        private int allocateRecord() {
+            int record;
+            if (freeRecord != NO_SLOT) {
+                record = freeRecord;
+                freeRecord = heads[record];
+            } else {
+                if (recordsUsed == heads.length) {
+                    int capacity = heads.length + (heads.length >> 1);
+                    heads = Arrays.copyOf(heads, capacity);
+                    tails = Arrays.copyOf(tails, capacity);
+                    counts = Arrays.copyOf(counts, capacity);
+                    totals = Arrays.copyOf(totals, capacity);
+                }
+                record = recordsUsed++;
+            }
+            heads[record] = NO_SLOT;
+            tails[record] = NO_SLOT;
+            counts[record] = 0;
+            totals[record] = 0.0;
+            return record;
+        }
+
+        private int allocateSlot() {
+            if (freeHead != NO_SLOT) {
+                int slot = freeHead;
+                freeHead = next[slot];
+                return slot;
+            }
+            if (used == ids.length) {
+                int capacity = ids.length + (ids.length >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                records = Arrays.copyOf(records, capacity);
+                productCodes = Arrays.copyOf(productCodes, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                unitPrices = Arrays.copyOf(unitPrices, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+            return used++;
+        }
+
+        private int findSlot(int record, long id) {
+            int mask = index.length - 1;
+            for (int i = homeOf(record, id, mask); index[i] != 0; i = (i + 1) & mask) {
+                int slot = index[i] - 1;
+                if (ids[slot] == id && records[slot] == record) {
+                    return slot;
+                }
+            }
+            return NO_SLOT;
+        }
+
+        private void addToIndex(int slot) {
+            if (++indexSize > index.length * 0.6) {
+                int[] old = index;
+                index = new int[old.length * 2];
+                for (int entry : old) {
+                    if (entry != 0) {
+                        insert(entry - 1);
+                    }
+                }
+            }
+            insert(slot);
+        }
+
+        private void insert(int slot) {
+            int mask = index.length - 1;
+            int i = homeOf(records[slot], ids[slot], mask);
+            while (index[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            index[i] = slot + 1;
+        }
+
+        // Backward-shift deletion, as in LongIntHashMap
+        private void removeFromIndex(int slot) {
+            int mask = index.length - 1;
+            int i = homeOf(records[slot], ids[slot], mask);
+            while (index[i] != slot + 1) {
+                i = (i + 1) & mask;
+            }
+            for (int j = (i + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+                int other = index[j] - 1;
+                int home = homeOf(records[other], ids[other], mask);
+                boolean movable = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+                if (movable) {
+                    index[i] = index[j];
+                    i = j;
+                }
+            }
+            index[i] = 0;
+            indexSize--;
+        }
+
+        private int homeOf(int record, long id, int mask) {
+            long h = (id + ((long) record << 32)) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    // Product names repeat across millions of line items; each distinct name is stored once
+    private static final class ProductDictionary {
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private volatile String[] names = new String[256];
+        private final ReentrantLock registerLock = new ReentrantLock();
+        private int size;
+
+        int codeOf(String name) {
+            if (name == null) {
+                return NO_PRODUCT;
+            }
+            Integer code = codes.get(name);
+            return code != null ? code : register(name);
+        }
+
+        String nameOf(int code) {
+            if (code == NO_PRODUCT) {
+                return null;
+            }
+            String[] current = names;
+            return code < current.length ? current[code] : null;
+        }
+
+        // A ReentrantLock rather than synchronized, so a virtual thread waiting here doesn't pin its carrier
+        private int register(String name) {
+            registerLock.lock();
+            try {
+                Integer existing = codes.get(name);
+                if (existing != null) {
+                    return existing;
+                }
+                String[] current = names;
+                if (size == current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                }
+                current[size] = name;
+                // Publish the name before its code so any reader holding the code can resolve it
+                names = current;
+                codes.put(name, size);
+                return size++;
+            } finally {
+                registerLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.globex.dashboard.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.globex.dashboard.model.DashboardUpdate;
+import com.globex.dashboard.model.LoyaltyView;
+import com.globex.dashboard.model.WarehouseUpdate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Coalesces OrderState changes over a short window and broadcasts them as view deltas. Each delta
+// is serialized once per window and the same string is written to every connected screen.
+@ApplicationScoped
+public class DashboardStream {
+    private static final Logger LOG = Logger.getLogger(DashboardStream.class);
+    // Per-subscriber backlog; a client that falls this far behind is dropped and reconnects
+    private static final int SUBSCRIBER_BUFFER = 64;
+
+    @Inject
+    OrderState orderState;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    FreshnessTracker freshness;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "dashboard.stream.coalesce-window", defaultValue = "500ms")
+    Duration coalesceWindow;
+
+    // Above this many changed ids in one window, clients are told to refetch instead
+    @ConfigProperty(name = "dashboard.stream.max-delta-size", defaultValue = "1000")
+    int maxDeltaSize;
+
+    // An empty update is sent after this much silence so proxies don't drop idle connections
+    @ConfigProperty(name = "dashboard.stream.keep-alive", defaultValue = "15s")
+    Duration keepAlive;
+
+    private final BroadcastProcessor<String> dashboardUpdates = BroadcastProcessor.create();
+    private final BroadcastProcessor<String> warehouseUpdates = BroadcastProcessor.create();
+    private ScheduledExecutorService scheduler;
+    private Timer deltaBuild;
+    private long lastSentNanos = System.nanoTime();
+
+    void onStart(@Observes StartupEvent event) {
+        deltaBuild = Timer.builder("dashboard.stream.delta.build")
+                .description("Time to build, serialize and broadcast one coalesced delta")
+                .publishPercentileHistogram()
+                .register(registry);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dashboard-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long windowMillis = Math.max(coalesceWindow.toMillis(), 10);
+        scheduler.scheduleWithFixedDelay(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        dashboardUpdates.onComplete();
+        warehouseUpdates.onComplete();
+    }
+
+    public Multi<String> dashboardUpdates() {
+        return dashboardUpdates.onOverflow().buffer(SUBSCRIBER_BUFFER);
+    }
+
+    public Multi<String> warehouseUpdates() {
+        return warehouseUpdates.onOverflow().buffer(SUBSCRIBER_BUFFER);
+    }
+
+    // Runs on the single scheduler thread, so the processors are only ever fed serially
+    void flush() {
+        try {
+            OrderState.ChangeSet changes = orderState.drainChanges();
+            long version = orderState.getVersion();
+            if (changes.isEmpty()) {
+                if (System.nanoTime() - lastSentNanos >= keepAlive.toNanos()) {
+                    publish(new DashboardUpdate(version, false, List.of(), List.of(), List.of(), List.of()),
+                            new WarehouseUpdate(version, false, List.of(), List.of()));
+                }
+                return;
+            }
+            if (changes.size() > maxDeltaSize) {
+                publish(new DashboardUpdate(version, true, List.of(), List.of(), List.of(), List.of()),
+                        new WarehouseUpdate(version, true, List.of(), List.of()));
+                return;
+            }
+
+            long start = System.nanoTime();
+            // Both updates come from one consistent read, stamped with the version they were read at
+            Updates updates = orderState.read(() -> {
+                long readVersion = orderState.getVersion();
+                List<LoyaltyView> loyalty = new ArrayList<>();
+                List<String> removedCustomerIds = new ArrayList<>();
+                for (String customerId : changes.getCustomerIds()) {
+                    LoyaltyView view = orderState.getLoyaltyView(customerId);
+                    if (view != null) {
+                        loyalty.add(view);
+                    } else {
+                        removedCustomerIds.add(customerId);
+                    }
+                }
+                DashboardUpdate dashboard = new DashboardUpdate(readVersion, false,
+                        orderState.getChangedRecentOrders(OrderState.RECENT_ORDERS_LIMIT,
+                                changes.getOrderIds(), changes.getCustomerIds()),
+                        orderState.getOrderIdsOutsideNewest(OrderState.RECENT_ORDERS_LIMIT, changes.getOrderIds()),
+                        loyalty, removedCustomerIds);
+                WarehouseUpdate warehouse = new WarehouseUpdate(readVersion, false,
+                        orderState.getChangedWarehouseOrders(OrderState.WAREHOUSE_ORDERS_LIMIT,
+                                changes.getOrderIds(), changes.getCustomerIds()),
+                        orderState.getOrderIdsOutsideNewest(OrderState.WAREHOUSE_ORDERS_LIMIT, changes.getOrderIds()));
+                return new Updates(dashboard, warehouse);
+            });
+            publish(updates.dashboard, updates.warehouse);
+            freshness.served(updates.dashboard.getVersion());
+            deltaBuild.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            LOG.errorf(e, "Failed to publish dashboard updates");
+        }
+    }
+
+    private void publish(DashboardUpdate dashboard, WarehouseUpdate warehouse) throws Exception {
+        dashboardUpdates.onNext(objectMapper.writeValueAsString(dashboard));
+        warehouseUpdates.onNext(objectMapper.writeValueAsString(warehouse));
+        lastSentNanos = System.nanoTime();
+    }
+
+    private static final class Updates {
+        private final DashboardUpdate dashboard;
+        private final WarehouseUpdate warehouse;
+
+        private Updates(DashboardUpdate dashboard, WarehouseUpdate warehouse) {
+            this.dashboard = dashboard;
+            this.warehouse = warehouse;
+        }
+    }
+}
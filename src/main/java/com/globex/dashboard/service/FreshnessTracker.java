@@ -0,0 +1,142 @@
+package com.globex.dashboard.service;
+
+import com.globex.dashboard.model.TableWatermark;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// How far behind Postgres each table is, split into the stages an event passes through:
+// commit -> Kafka (source.ts_ms to the Kafka record timestamp, or Debezium's ts_ms when the record
+// timestamp isn't available), Kafka -> applied to OrderState, and applied -> first served in a view.
+// Stages compare clocks of different hosts, so skew between them shows up; negatives count as 0.
+@ApplicationScoped
+public class FreshnessTracker {
+    @Inject
+    OrderState orderState;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Map<String, TableFreshness> tables = new ConcurrentHashMap<>();
+
+    // Call after the event's change has been applied to OrderState. Zero timestamps mean absent.
+    public void applied(String table, long sourceTsMs, Long sourceLsn, long envelopeTsMs, long kafkaTsMs) {
+        tables.computeIfAbsent(table, this::newTable)
+                .applied(sourceTsMs, sourceLsn, envelopeTsMs, kafkaTsMs, orderState.getVersion());
+    }
+
+    // Call when a view built from OrderState at `version` goes out to clients
+    public void served(long version) {
+        for (TableFreshness table : tables.values()) {
+            table.served(version);
+        }
+    }
+
+    public List<TableWatermark> getWatermarks() {
+        List<TableWatermark> watermarks = new ArrayList<>(tables.size());
+        for (TableFreshness table : tables.values()) {
+            Watermark w = table.watermark.get();
+            if (w != null) {
+                watermarks.add(new TableWatermark(table.name,
+                        w.sourceTsMs > 0 ? Instant.ofEpochMilli(w.sourceTsMs) : null,
+                        w.sourceLsn,
+                        w.kafkaTsMs > 0 ? Instant.ofEpochMilli(w.kafkaTsMs) : null,
+                        Instant.ofEpochMilli(w.appliedAtMs),
+                        w.sourceTsMs > 0 ? Math.max(w.appliedAtMs - w.sourceTsMs, 0) : null));
+            }
+        }
+        watermarks.sort((a, b) -> a.getTable().compareTo(b.getTable()));
+        return watermarks;
+    }
+
+    private TableFreshness newTable(String name) {
+        return new TableFreshness(name, registry);
+    }
+
+    private static final class TableFreshness {
+        private final String name;
+        private final Timer commitToKafka;
+        private final Timer kafkaToApply;
+        private final Timer applyToServed;
+        // Newest change applied so far, by commit time
+        private final AtomicReference<Watermark> watermark = new AtomicReference<>();
+        // Oldest applied change not yet seen in any view
+        private final AtomicReference<Pending> pending = new AtomicReference<>();
+
+        private TableFreshness(String name, MeterRegistry registry) {
+            this.name = name;
+            commitToKafka = stageTimer(registry, "dashboard.freshness.commit.to.kafka",
+                    "Time from database commit to the change reaching Kafka", name);
+            kafkaToApply = stageTimer(registry, "dashboard.freshness.kafka.to.apply",
+                    "Time from the change reaching Kafka to being applied to OrderState", name);
+            applyToServed = stageTimer(registry, "dashboard.freshness.apply.to.served",
+                    "Time from the change being applied to first being served in a view", name);
+        }
+
+        void applied(long sourceTsMs, Long sourceLsn, long envelopeTsMs, long kafkaTsMs, long version) {
+            long now = System.currentTimeMillis();
+            long arrivedTsMs = kafkaTsMs > 0 ? kafkaTsMs : envelopeTsMs;
+            if (sourceTsMs > 0 && arrivedTsMs > 0) {
+                commitToKafka.record(Math.max(arrivedTsMs - sourceTsMs, 0), TimeUnit.MILLISECONDS);
+            }
+            if (arrivedTsMs > 0) {
+                kafkaToApply.record(Math.max(now - arrivedTsMs, 0), TimeUnit.MILLISECONDS);
+            }
+            if (pending.get() == null) {
+                pending.compareAndSet(null, new Pending(version, System.nanoTime()));
+            }
+            watermark.accumulateAndGet(new Watermark(sourceTsMs, sourceLsn, arrivedTsMs, now),
+                    (current, update) -> current == null || update.sourceTsMs >= current.sourceTsMs ? update : current);
+        }
+
+        void served(long version) {
+            Pending p = pending.get();
+            // The pending change's version is read after it was applied, so any view at or past
+            // that version includes it
+            if (p != null && p.version <= version && pending.compareAndSet(p, null)) {
+                applyToServed.record(System.nanoTime() - p.appliedAtNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private static Timer stageTimer(MeterRegistry registry, String name, String description, String table) {
+            return Timer.builder(name)
+                    .description(description)
+                    .tag("table", table)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+
+    private static final class Watermark {
+        private final long sourceTsMs;
+        private final Long sourceLsn;
+        private final long kafkaTsMs;
+        private final long appliedAtMs;
+
+        private Watermark(long sourceTsMs, Long sourceLsn, long kafkaTsMs, long appliedAtMs) {
+            this.sourceTsMs = sourceTsMs;
+            this.sourceLsn = sourceLsn;
+            this.kafkaTsMs = kafkaTsMs;
+            this.appliedAtMs = appliedAtMs;
+        }
+    }
+
+    private static final class Pending {
+        private final long version;
+        private final long appliedAtNanos;
+
+        private Pending(long version, long appliedAtNanos) {
+            this.version = version;
+            this.appliedAtNanos = appliedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.globex.dashboard.service;
+
+import com.globex.dashboard.model.LineItem;
+
+import java.io.IOException;
+import java.util.List;
+
+// Line items grouped by order. Writers for an order are serialized by OrderState's stripe lock;
+// reads may run concurrently with writes and must see each order's items as of some recent write.
+interface LineItemStore {
+
+    // Replaces the line item with the same id in its order, or appends it; constant time either way.
+    // Returns the item replaced, null when appended.
+    LineItem upsert(LineItem lineItem);
+
+    // The order's line items in arrival order, empty when it has none
+    List<LineItem> get(String orderId);
+
+    int count(String orderId);
+
+    // Sum of quantity * unit price over the order's line items, kept as a running total
+    double total(String orderId);
+
+    void removeOrder(String orderId);
+
+    // Line items across all orders
+    long size();
+
+    // Visits every order that has line items; used to stream snapshots
+    void forEachOrder(OrderVisitor visitor) throws IOException;
+
+    @FunctionalInterface
+    interface OrderVisitor {
+        void visit(String orderId, List<LineItem> lineItems) throws IOException;
+    }
+}
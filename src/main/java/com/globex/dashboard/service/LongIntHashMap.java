@@ -0,0 +1,122 @@
+package com.globex.dashboard.service;
+
+import java.util.Arrays;
+
+// Open-addressing long -> int map with linear probing: two flat arrays, no boxing, no entry objects.
+// Not thread-safe. Long.MIN_VALUE marks empty slots and cannot be used as a key.
+final class LongIntHashMap {
+    static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    LongIntHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    int get(long key, int missing) {
+        for (int i = slotOf(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == EMPTY_KEY) {
+                return missing;
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        int i = slotOf(key);
+        for (; keys[i] != EMPTY_KEY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    int remove(long key, int missing) {
+        int i = slotOf(key);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY_KEY) {
+                return missing;
+            }
+            i = (i + 1) & mask;
+        }
+        int removed = values[i];
+        // Backward-shift deletion: pull later entries of the probe run into the gap so lookups
+        // never stop early, without tombstones
+        for (int j = (i + 1) & mask; keys[j] != EMPTY_KEY; j = (j + 1) & mask) {
+            int home = slotOf(keys[j]);
+            boolean movable = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+            if (movable) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY_KEY;
+        size--;
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long[] keys() {
+        long[] copy = new long[size];
+        int n = 0;
+        for (long k : keys) {
+            if (k != EMPTY_KEY) {
+                copy[n++] = k;
+            }
+        }
+        return copy;
+    }
+
+    private int slotOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k != EMPTY_KEY) {
+                int j = slotOf(k);
+                while (keys[j] != EMPTY_KEY) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = k;
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 8) - 1) << 1;
+        return Math.max(capacity, 16);
+    }
+}
@@ -0,0 +1,148 @@
+package com.globex.dashboard.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Per-customer spend kept up to date from order total deltas, ranked by loyalty points. Spend is kept
+// in whole cents, each order contributing its rounded total, so removing or repricing an order takes
+// back exactly what it added and points (one per cent) never drift with floating-point error.
+// Updates for one customer are serialized by ConcurrentHashMap.compute; standings are immutable,
+// so readers can walk the ranking without locking.
+public class LoyaltyLeaderboard {
+    private final ConcurrentHashMap<String, Standing> standings = new ConcurrentHashMap<>();
+    private final NavigableSet<Standing> ranking = new ConcurrentSkipListSet<>(LoyaltyLeaderboard::compareStandings);
+
+    public static long centsOf(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public static long pointsFor(double totalSpend) {
+        return centsOf(totalSpend);
+    }
+
+    public void addOrder(String customerId, double totalAmount) {
+        addOrders(customerId, centsOf(totalAmount), 1);
+    }
+
+    // Several orders' spend at once, e.g. restoring what evicted orders contributed
+    public void addOrders(String customerId, long spendCents, int orderCount) {
+        if (customerId == null || orderCount <= 0) {
+            return;
+        }
+        standings.compute(customerId, (id, current) -> {
+            Standing updated = current == null
+                    ? new Standing(id, spendCents, orderCount)
+                    : new Standing(id, current.spendCents + spendCents, current.orderCount + orderCount);
+            rerank(current, updated);
+            return updated;
+        });
+    }
+
+    public void removeOrder(String customerId, double totalAmount) {
+        if (customerId == null) {
+            return;
+        }
+        standings.computeIfPresent(customerId, (id, current) -> {
+            Standing updated = current.orderCount <= 1
+                    ? null
+                    : new Standing(id, current.spendCents - centsOf(totalAmount), current.orderCount - 1);
+            rerank(current, updated);
+            return updated;
+        });
+    }
+
+    // An order's total changed from previousAmount to amount
+    public void repriceOrder(String customerId, double previousAmount, double amount) {
+        long delta = centsOf(amount) - centsOf(previousAmount);
+        if (customerId == null || delta == 0) {
+            return;
+        }
+        standings.computeIfPresent(customerId, (id, current) -> {
+            Standing updated = new Standing(id, current.spendCents + delta, current.orderCount);
+            rerank(current, updated);
+            return updated;
+        });
+    }
+
+    // Highest points first; limit <= 0 returns every customer
+    public List<Standing> top(int limit) {
+        return collect(ranking.iterator(), limit);
+    }
+
+    // The standings ranked right after (points, customerId), which needn't be on the board anymore;
+    // the ranking is entered at that position instead of walked from the top
+    public List<Standing> after(long loyaltyPoints, String customerId, int limit) {
+        Standing position = new Standing(customerId, loyaltyPoints, 0);
+        return collect(ranking.tailSet(position, false).iterator(), limit);
+    }
+
+    private static List<Standing> collect(Iterator<Standing> it, int limit) {
+        List<Standing> standings = new ArrayList<>(limit > 0 ? Math.min(limit, 1024) : 16);
+        while (it.hasNext() && (limit <= 0 || standings.size() < limit)) {
+            standings.add(it.next());
+        }
+        return standings;
+    }
+
+    public Standing get(String customerId) {
+        return standings.get(customerId);
+    }
+
+    public int size() {
+        return standings.size();
+    }
+
+    private void rerank(Standing current, Standing updated) {
+        if (current != null && updated != null && compareStandings(current, updated) == 0) {
+            // Same rank slot: swap the entry so the ranking carries the new spend
+            ranking.remove(current);
+            ranking.add(updated);
+            return;
+        }
+        // Insert before removing so a concurrent reader never misses the customer entirely
+        if (updated != null) {
+            ranking.add(updated);
+        }
+        if (current != null) {
+            ranking.remove(current);
+        }
+    }
+
+    private static int compareStandings(Standing a, Standing b) {
+        int cmp = Long.compare(b.spendCents, a.spendCents);
+        return cmp != 0 ? cmp : a.customerId.compareTo(b.customerId);
+    }
+
+    public static final class Standing {
+        private final String customerId;
+        private final long spendCents;
+        private final int orderCount;
+
+        private Standing(String customerId, long spendCents, int orderCount) {
+            this.customerId = customerId;
+            this.spendCents = spendCents;
+            this.orderCount = orderCount;
+        }
+
+        public String getCustomerId() {
+            return customerId;
+        }
+
+        public double getTotalSpend() {
+            return spendCents / 100.0;
+        }
+
+        // One point per cent spent
+        public long getLoyaltyPoints() {
+            return spendCents;
+        }
+
+        public int getOrderCount() {
+            return orderCount;
+        }
+    }
+}
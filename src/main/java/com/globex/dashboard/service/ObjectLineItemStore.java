@@ -0,0 +1,112 @@
+package com.globex.dashboard.service;
+
+import com.globex.dashboard.model.LineItem;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// LineItem objects per order id, indexed by line item id with a running total, so an upsert costs
+// the same for a 3-line order as for a 500-line one. Works for any id format.
+final class ObjectLineItemStore implements LineItemStore {
+    private final Map<String, OrderLineItems> lineItemsByOrder = new ConcurrentHashMap<>();
+    private final LongAdder size = new LongAdder();
+
+    @Override
+    public LineItem upsert(LineItem lineItem) {
+        OrderLineItems items = lineItemsByOrder.computeIfAbsent(lineItem.getOrderId(), id -> new OrderLineItems());
+        int before = items.size;
+        LineItem replaced = items.upsert(lineItem);
+        if (items.size != before) {
+            size.increment();
+        }
+        return replaced;
+    }
+
+    @Override
+    public List<LineItem> get(String orderId) {
+        OrderLineItems items = lineItemsByOrder.get(orderId);
+        return items != null ? items.snapshot() : List.of();
+    }
+
+    @Override
+    public int count(String orderId) {
+        OrderLineItems items = lineItemsByOrder.get(orderId);
+        return items != null ? items.size : 0;
+    }
+
+    @Override
+    public double total(String orderId) {
+        OrderLineItems items = lineItemsByOrder.get(orderId);
+        return items != null ? items.total : 0.0;
+    }
+
+    @Override
+    public void removeOrder(String orderId) {
+        OrderLineItems removed = lineItemsByOrder.remove(orderId);
+        if (removed != null) {
+            size.add(-removed.size);
+        }
+    }
+
+    @Override
+    public long size() {
+        return size.sum();
+    }
+
+    @Override
+    public void forEachOrder(OrderVisitor visitor) throws IOException {
+        for (Map.Entry<String, OrderLineItems> entry : lineItemsByOrder.entrySet()) {
+            List<LineItem> lineItems = entry.getValue().snapshot();
+            if (!lineItems.isEmpty()) {
+                visitor.visit(entry.getKey(), lineItems);
+            }
+        }
+    }
+
+    private static double amountOf(LineItem lineItem) {
+        return lineItem.getUnitPrice() * lineItem.getQuantity();
+    }
+
+    // One writer at a time (the order's stripe lock). Items are appended to a grow-only array and
+    // published by the volatile size, so readers see a prefix of complete items without locking;
+    // an update swaps one array cell.
+    private static final class OrderLineItems {
+        private final Map<String, Integer> slotById = new HashMap<>();
+        private volatile LineItem[] items = new LineItem[4];
+        private volatile int size;
+        private volatile double total;
+
+        // The item replaced, null when appended
+        LineItem upsert(LineItem lineItem) {
+            Integer slot = slotById.get(lineItem.getId());
+            LineItem[] current = items;
+            if (slot != null) {
+                LineItem replaced = current[slot];
+                current[slot] = lineItem;
+                total += amountOf(lineItem) - amountOf(replaced);
+                return replaced;
+            }
+            int n = size;
+            if (n == current.length) {
+                current = Arrays.copyOf(current, n * 2);
+                items = current;
+            }
+            current[n] = lineItem;
+            slotById.put(lineItem.getId(), n);
+            total += amountOf(lineItem);
+            size = n + 1;
+            return null;
+        }
+
+        List<LineItem> snapshot() {
+            int n = size;
+            return n == 0 ? List.of() : Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(items, n)));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.globex.dashboard.service;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Background eviction of old orders so the store stays within the pod's memory limit.
+// Each run evicts a bounded batch from the oldest end of the recency index, off the consumer threads,
+// then expires a bounded batch of the evicted orders' tombstones.
+@ApplicationScoped
+public class OrderRetention {
+    private static final Logger LOG = Logger.getLogger(OrderRetention.class);
+
+    @Inject
+    OrderState orderState;
+
+    @ConfigProperty(name = "dashboard.retention.max-age")
+    Optional<Duration> maxAge;
+
+    @ConfigProperty(name = "dashboard.retention.max-orders")
+    OptionalInt maxOrders;
+
+    @ConfigProperty(name = "dashboard.retention.interval", defaultValue = "1s")
+    Duration interval;
+
+    @ConfigProperty(name = "dashboard.retention.batch-size", defaultValue = "10000")
+    int batchSize;
+
+    private ScheduledExecutorService scheduler;
+
+    void onStart(@Observes StartupEvent event) {
+        if (maxAge.isEmpty() && maxOrders.isEmpty()) {
+            LOG.info("Order retention disabled, keeping every order");
+            return;
+        }
+        LOG.infof("Order retention enabled, max age: %s, max orders: %s",
+                maxAge.map(Duration::toString).orElse("unbounded"),
+                maxOrders.isPresent() ? String.valueOf(maxOrders.getAsInt()) : "unbounded");
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(interval.toMillis(), 10);
+        scheduler.scheduleWithFixedDelay(this::evict, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void evict() {
+        try {
+            Instant cutoff = maxAge.map(age -> Instant.now().minus(age)).orElse(null);
+            int evicted = orderState.evictOldest(cutoff, maxOrders.orElse(0), batchSize);
+            if (evicted > 0) {
+                LOG.debugf("Evicted %d orders, %d retained", evicted, orderState.getOrderCount());
+            }
+            // Tombstones of evicted orders are held to the same limits, counted from their eviction
+            int expired = orderState.expireEvicted(cutoff, maxOrders.orElse(0), batchSize);
+            if (expired > 0) {
+                LOG.debugf("Expired %d evicted orders, %d retained", expired, orderState.getEvictedOrderCount());
+            }
+        } catch (Exception e) {
+            LOG.errorf(e, "Order eviction failed");
+        }
+    }
+}
@@ -1,166 +1,1452 @@
 package com.globex.dashboard.service;
 
 import com.globex.dashboard.model.Customer;
+import com.globex.dashboard.model.CustomerView;
 import com.globex.dashboard.model.LineItem;
 import com.globex.dashboard.model.Order;
 import com.globex.dashboard.model.LoyaltyView;
 import com.globex.dashboard.model.OrderView;
+import com.globex.dashboard.model.Page;
+import com.globex.dashboard.model.ProductSalesView;
+import com.globex.dashboard.model.RevenueWindow;
 import com.globex.dashboard.model.WarehouseView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+// Writers serialize per order id on a striped lock, so events for different orders don't contend;
+// customer profile writes have stripes of their own. Each stripe carries a write sequence that is
+// odd while its holder changes state, so views are read without locking and kept only if no stripe
+// was written meanwhile (see read). Readers walk concurrent maps whose values are immutable once published.
+// The recency index is split into shards by order id so parallel consumers insert into different
+// skip lists; reads merge the shards. Index entries carry each order's denormalized views, rebuilt
+// when the order, its line items or its customer change, so reads just hand out published views.
 @ApplicationScoped
 public class OrderState {
-    private final Map<String, Customer> customers = new HashMap<>();
-    private final Map<String, Order> orders = new HashMap<>();
-    private final Map<String, List<LineItem>> lineItemsByOrder = new HashMap<>();
+    private static final Logger LOG = Logger.getLogger(OrderState.class);
+
+    // Window sizes of the dashboard order lists
+    public static final int RECENT_ORDERS_LIMIT = 50;
+    public static final int WAREHOUSE_ORDERS_LIMIT = 100;
+
+    private static final int LOCK_STRIPES = 64;
+    // Optimistic tries of a read before it holds writes off
+    private static final int OPTIMISTIC_READ_ATTEMPTS = 8;
+
+    private final Map<String, Customer> customers = new ConcurrentHashMap<>();
+    private final Map<String, Order> orders = new ConcurrentHashMap<>();
+    private LineItemStore lineItems = new ObjectLineItemStore();
+    // Orders indexed by (createdAt, id) per shard, so top-N reads walk only N entries from the
+    // newest end of each
+    private OrderShard[] shards = {new OrderShard()};
+    // Each customer's orders by (createdAt, id), so a customer change can re-materialize that customer's
+    // order views, and order history and searches by customer walk only that customer's orders
+    private final Map<String, NavigableSet<OrderKey>> ordersByCustomer = new ConcurrentHashMap<>();
+    // Customers with orders held but no profile yet, kept with ordersByCustomer, for join diagnostics
+    private final Set<String> missingCustomers = ConcurrentHashMap.newKeySet();
+    // Orders held under those customers; changed only inside ordersByCustomer's per-customer compute
+    private final LongAdder orphanOrders = new LongAdder();
+    // Orders by (totalAmount, id), for searches by minimum total
+    private final NavigableSet<AmountKey> byTotalAmount = new ConcurrentSkipListSet<>();
+    // Spend and points per customer, updated from order total deltas instead of rescanning orders
+    private final LoyaltyLeaderboard leaderboard = new LoyaltyLeaderboard();
+    // Order count and revenue by createdAt, per minute, hour and day, updated from the same deltas
+    private final RevenueWindows revenue = new RevenueWindows();
+    // Units and revenue per product from line item deltas; replaced in init() with the configured capacity
+    private ProductSales productSales = new ProductSales(1);
+    private final Stripe[] orderLocks = new Stripe[LOCK_STRIPES];
+    // Striped by customer id; taken before any order stripe by customer writers and by locked reads
+    private final Stripe[] customerLocks = new Stripe[LOCK_STRIPES];
+    // Bumped after every applied change so readers can tell whether anything moved since their last view.
+    // Only ever incremented, so its sum never goes backwards; writers on different cores don't share a counter.
+    private final LongAdder version = new LongAdder();
+    // Set while this thread is inside read(), so views composed of other views validate once
+    private final ThreadLocal<Boolean> reading = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    // What evicted orders contributed to the loyalty totals, so late events for them aren't counted twice.
+    // Kept within the same age and count limits as live orders; evictionQueue holds them in eviction order.
+    private final Map<String, EvictedOrder> evictedOrders = new ConcurrentHashMap<>();
+    private final Queue<EvictedOrder> evictionQueue = new ConcurrentLinkedQueue<>();
+    // Spend and order count of expired tombstones per customer, so snapshots still carry their loyalty totals
+    private final Map<String, FoldedSpend> foldedSpend = new ConcurrentHashMap<>();
+    // Ids touched since the change feed last drained them; views for these need pushing to clients
+    private final Set<String> changedOrderIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> changedCustomerIds = ConcurrentHashMap.newKeySet();
+
+    // "objects" keeps LineItem objects per order; "compact" stores numeric ids in primitive columns
+    @ConfigProperty(name = "dashboard.store.line-items", defaultValue = "objects")
+    String lineItemStorage;
+
+    // Recency index shards; more than one pays off when several consumer lanes insert orders at once
+    @ConfigProperty(name = "dashboard.state.shards", defaultValue = "1")
+    int shardCount;
+
+    // Products counted exactly; beyond this many, the rest are estimated from a sketch. Initialized so
+    // instances built outside CDI (benchmarks, tests) get the same default.
+    @ConfigProperty(name = "dashboard.products.tracked", defaultValue = "10000")
+    int trackedProducts = 10_000;
+
+    @Inject
+    MeterRegistry registry;
+
+    // Time writers spend waiting for and holding stripe locks, per write path
+    private LockTimers orderLockTimers;
+    private LockTimers lineItemLockTimers;
+    private LockTimers evictionLockTimers;
+    private LockTimers customerLockTimers;
+    // Reads that had to hold writes off after losing every optimistic attempt
+    private Counter lockedReads;
+
+    public OrderState() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            orderLocks[i] = new Stripe();
+            customerLocks[i] = new Stripe();
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        if ("compact".equalsIgnoreCase(lineItemStorage)) {
+            lineItems = new CompactLineItemStore();
+        } else if (!"objects".equalsIgnoreCase(lineItemStorage)) {
+            throw new IllegalArgumentException("Unknown dashboard.store.line-items: " + lineItemStorage);
+        }
+        LOG.infof("Line item storage: %s", lineItemStorage);
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("dashboard.state.shards must be at least 1: " + shardCount);
+        }
+        productSales = new ProductSales(trackedProducts);
+        shards = new OrderShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new OrderShard();
+        }
+
+        orderLockTimers = new LockTimers(registry, "order");
+        lineItemLockTimers = new LockTimers(registry, "line_item");
+        evictionLockTimers = new LockTimers(registry, "eviction");
+        customerLockTimers = new LockTimers(registry, "customer");
+        Gauge.builder("dashboard.state.customers", this, OrderState::getCustomerCount).register(registry);
+        Gauge.builder("dashboard.state.orders", this, OrderState::getOrderCount).register(registry);
+        Gauge.builder("dashboard.state.line.items", this, state -> state.lineItems.size()).register(registry);
+        Gauge.builder("dashboard.state.evicted.orders", this, OrderState::getEvictedOrderCount).register(registry);
+        Gauge.builder("dashboard.state.loyalty.customers", this, state -> state.leaderboard.size()).register(registry);
+        Gauge.builder("dashboard.state.products.tracked", this, state -> state.productSales.trackedCount()).register(registry);
+        Gauge.builder("dashboard.state.version", this, OrderState::getVersion).register(registry);
+        lockedReads = Counter.builder("dashboard.state.locked.reads")
+                .description("View reads that held writes off after overlapping writes on every optimistic attempt")
+                .register(registry);
+    }
+
+    public void upsertCustomer(Customer customer) {
+        Stripe lock = customerLocks[stripeOf(customer.getId())];
+        lock.lock();
+        lock.beginWrite();
+        try {
+            applyCustomer(customer);
+            version.increment();
+        } finally {
+            lock.endWrite();
+            lock.unlock();
+        }
+    }
+
+    public void upsertCustomers(List<Customer> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int[] stripes = stripesFor(batch, Customer::getId);
+        for (int stripe : stripes) {
+            customerLocks[stripe].lock();
+            customerLocks[stripe].beginWrite();
+        }
+        try {
+            for (Customer customer : batch) {
+                applyCustomer(customer);
+            }
+            version.increment();
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                customerLocks[stripes[i]].endWrite();
+                customerLocks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    private void applyCustomer(Customer customer) {
+        Customer previous = customers.put(customer.getId(), customer);
+        if (missingCustomers.contains(customer.getId())) {
+            // Under the index's lock for this customer, so no order is indexed or dropped meanwhile
+            ordersByCustomer.computeIfPresent(customer.getId(), (id, keys) -> {
+                if (missingCustomers.remove(id)) {
+                    orphanOrders.add(-keys.size());
+                }
+                return keys;
+            });
+        }
+        // Orders that arrived before their customer show "Unknown" until now
+        if (previous == null || !Objects.equals(previous.getName(), customer.getName())) {
+            rematerializeOrdersOf(customer.getId());
+        }
+        changedCustomerIds.add(customer.getId());
+    }
+
+    // The customer is already published, so an order materialized concurrently either reads the new
+    // name itself or was indexed before this walk and is rebuilt here under its stripe lock
+    private void rematerializeOrdersOf(String customerId) {
+        NavigableSet<OrderKey> keys = ordersByCustomer.get(customerId);
+        if (keys == null) {
+            return;
+        }
+        for (OrderKey key : keys) {
+            Stripe lock = lockFor(key.orderId);
+            long acquired = customerLockTimers.lock(lock);
+            try {
+                Order order = orders.get(key.orderId);
+                if (order != null && customerId.equals(order.getCustomerId()) && OrderKey.of(order).equals(key)) {
+                    shardOf(key.orderId).byCreatedAt.put(key, materialize(order));
+                }
+            } finally {
+                customerLockTimers.unlock(lock, acquired);
+            }
+        }
+    }
 
-    public synchronized void upsertCustomer(Customer customer) {
-        customers.put(customer.getId(), customer);
+    public void upsertOrder(Order order) {
+        Stripe lock = lockFor(order.getId());
+        long acquired = orderLockTimers.lock(lock);
+        try {
+            applyOrder(order);
+            version.increment();
+        } finally {
+            orderLockTimers.unlock(lock, acquired);
+        }
     }
 
-    public synchronized void upsertOrder(Order order) {
-        orders.put(order.getId(), order);
-        
+    // Applies a consumed batch in arrival order while holding every stripe it touches once
+    public void upsertOrders(List<Order> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int[] stripes = stripesFor(batch, Order::getId);
+        long acquired = lockStripes(stripes, orderLockTimers);
+        try {
+            for (Order order : batch) {
+                applyOrder(order);
+            }
+            version.increment();
+        } finally {
+            unlockStripes(stripes, acquired, orderLockTimers);
+        }
+    }
+
+    public void upsertLineItem(LineItem lineItem) {
+        Stripe lock = lockFor(lineItem.getOrderId());
+        long acquired = lineItemLockTimers.lock(lock);
+        try {
+            applyLineItem(lineItem);
+            version.increment();
+        } finally {
+            lineItemLockTimers.unlock(lock, acquired);
+        }
+    }
+
+    public void upsertLineItems(List<LineItem> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int[] stripes = stripesFor(batch, LineItem::getOrderId);
+        long acquired = lockStripes(stripes, lineItemLockTimers);
+        try {
+            for (LineItem lineItem : batch) {
+                applyLineItem(lineItem);
+            }
+            version.increment();
+        } finally {
+            unlockStripes(stripes, acquired, lineItemLockTimers);
+        }
+    }
+
+    // Caller holds the stripe lock for order.getId()
+    private void applyOrder(Order order) {
+        // Orders without an id never make it into a view; keep them out of the index too
+        if (order == null || order.getId() == null) {
+            return;
+        }
+
         // Recalculate total from existing line items if any exist
         // This handles the case where line items arrived before the order
-        List<LineItem> lineItems = lineItemsByOrder.get(order.getId());
-        if (lineItems != null && !lineItems.isEmpty()) {
-            double totalAmount = lineItems.stream()
-                    .mapToDouble(li -> li.getUnitPrice() * li.getQuantity())
-                    .sum();
-            order.setTotalAmount(totalAmount);
+        boolean hasLineItems = lineItems.count(order.getId()) > 0;
+        if (hasLineItems) {
+            order.setTotalAmount(lineItems.total(order.getId()));
+        }
+
+        // An update to an evicted order takes over its retained contribution; its line items are
+        // gone, so the total it was last known with still applies
+        EvictedOrder evicted = evictedOrders.remove(order.getId());
+        if (evicted != null) {
+            if (!hasLineItems) {
+                order.setTotalAmount(evicted.totalAmount);
+            }
+            leaderboard.removeOrder(evicted.customerId, evicted.totalAmount);
+            revenue.add(evicted.createdAt, -1, -evicted.totalAmount);
+            markCustomerChanged(evicted.customerId);
+        }
+
+        Order previous = orders.put(order.getId(), order);
+        OrderKey key = OrderKey.of(order);
+        NavigableMap<OrderKey, MaterializedOrder> byCreatedAt = shardOf(order.getId()).byCreatedAt;
+        // Indexed under its customer before the customer's name is read; see rematerializeOrdersOf
+        indexCustomerOrder(order.getCustomerId(), key);
+        byCreatedAt.put(key, materialize(order));
+        // Removed before the new key goes in, so an amount search never meets the order twice
+        if (previous != null && previous.getTotalAmount() != order.getTotalAmount()) {
+            byTotalAmount.remove(AmountKey.of(previous));
+        }
+        byTotalAmount.add(AmountKey.of(order));
+        if (previous != null) {
+            OrderKey previousKey = OrderKey.of(previous);
+            if (!previousKey.equals(key)) {
+                byCreatedAt.remove(previousKey);
+            }
+            if (!previousKey.equals(key) || !Objects.equals(previous.getCustomerId(), order.getCustomerId())) {
+                unindexCustomerOrder(previous.getCustomerId(), previousKey);
+            }
+            leaderboard.removeOrder(previous.getCustomerId(), previous.getTotalAmount());
+            revenue.add(previous.getCreatedAt(), -1, -previous.getTotalAmount());
+            markCustomerChanged(previous.getCustomerId());
         }
+        leaderboard.addOrder(order.getCustomerId(), order.getTotalAmount());
+        revenue.add(order.getCreatedAt(), 1, order.getTotalAmount());
+        changedOrderIds.add(order.getId());
+        markCustomerChanged(order.getCustomerId());
     }
 
-    public synchronized void upsertLineItem(LineItem lineItem) {
-        lineItemsByOrder.computeIfAbsent(lineItem.getOrderId(), k -> new ArrayList<>())
-                .removeIf(li -> li.getId().equals(lineItem.getId()));
-        lineItemsByOrder.computeIfAbsent(lineItem.getOrderId(), k -> new ArrayList<>())
-                .add(lineItem);
-        
+    // Caller holds the stripe lock for lineItem.getOrderId()
+    private void applyLineItem(LineItem lineItem) {
+        String orderId = lineItem.getOrderId();
+        if (evictedOrders.containsKey(orderId)) {
+            // Past retention; the order's total is frozen in the loyalty aggregates
+            return;
+        }
+        // Product totals keep counting the items of orders evicted later, like loyalty totals
+        productSales.replace(lineItems.upsert(lineItem), lineItem);
+
         // Calculate and update order total from line items
-        Order order = orders.get(lineItem.getOrderId());
+        Order order = orders.get(orderId);
         if (order != null) {
-            List<LineItem> lineItems = lineItemsByOrder.get(lineItem.getOrderId());
-            double totalAmount = lineItems.stream()
-                    .mapToDouble(li -> li.getUnitPrice() * li.getQuantity())
-                    .sum();
-            order.setTotalAmount(totalAmount);
-        }
-    }
-
-    public synchronized List<OrderView> getRecentOrders(int limit) {
-        return orders.values().stream()
-                .filter(order -> order != null && order.getId() != null)
-                .sorted(Comparator.comparing(
-                    (Order order) -> order.getCreatedAt() != null ? order.getCreatedAt() : Instant.EPOCH,
-                    Comparator.nullsLast(Comparator.naturalOrder())
-                ).reversed())
-                .limit(limit)
-                .map(order -> {
-                    String customerId = order.getCustomerId();
-                    Customer customer = customerId != null ? customers.get(customerId) : null;
-                    String customerName = customer != null ? customer.getName() : "Unknown";
-                    return new OrderView(
-                            order.getId(),
-                            customerName,
-                            order.getTotalAmount(),
-                            order.getCreatedAt() != null ? order.getCreatedAt() : Instant.now()
-                    );
-                })
-                .collect(Collectors.toList());
-    }
-
-    public synchronized List<LoyaltyView> getLoyaltyByCustomer() {
-        Map<String, Double> totalSpendByCustomer = new HashMap<>();
-        
-        // Calculate total spend per customer
+            double totalAmount = lineItems.total(orderId);
+            Order repriced = new Order(order.getId(), order.getCustomerId(), totalAmount, order.getCreatedAt());
+            orders.put(orderId, repriced);
+            shardOf(orderId).byCreatedAt.put(OrderKey.of(repriced), materialize(repriced));
+            if (totalAmount != order.getTotalAmount()) {
+                byTotalAmount.remove(AmountKey.of(order));
+                byTotalAmount.add(AmountKey.of(repriced));
+            }
+            leaderboard.repriceOrder(order.getCustomerId(), order.getTotalAmount(), totalAmount);
+            revenue.add(order.getCreatedAt(), 0, totalAmount - order.getTotalAmount());
+            markCustomerChanged(order.getCustomerId());
+        }
+        changedOrderIds.add(orderId);
+    }
+
+    // Evicts up to `budget` of the oldest orders that are older than `cutoff` (if set) or beyond
+    // `maxOrders` (if > 0), together with their line items. Loyalty totals keep their spend.
+    public int evictOldest(Instant cutoff, int maxOrders, int budget) {
+        int evicted = 0;
+        int excess = maxOrders > 0 ? orders.size() - maxOrders : 0;
+        while (evicted < budget) {
+            Map.Entry<OrderKey, MaterializedOrder> oldest = oldestEntry();
+            if (oldest == null) {
+                break;
+            }
+            boolean expired = cutoff != null && oldest.getKey().createdAt.isBefore(cutoff);
+            if (!expired && excess <= 0) {
+                break;
+            }
+            String orderId = oldest.getKey().orderId;
+            Stripe lock = lockFor(orderId);
+            long acquired = evictionLockTimers.lock(lock);
+            try {
+                Order order = orders.get(orderId);
+                if (order != null && OrderKey.of(order).equals(oldest.getKey())) {
+                    orders.remove(orderId);
+                    lineItems.removeOrder(orderId);
+                    unindexCustomerOrder(order.getCustomerId(), oldest.getKey());
+                    byTotalAmount.remove(AmountKey.of(order));
+                    EvictedOrder tombstone = new EvictedOrder(orderId, order.getCustomerId(), order.getTotalAmount(),
+                            oldest.getKey().createdAt, Instant.now());
+                    evictedOrders.put(orderId, tombstone);
+                    evictionQueue.add(tombstone);
+                    changedOrderIds.add(orderId);
+                }
+                // Under the stripe lock the entry either belongs to the order just evicted or is stale
+                shardOf(orderId).byCreatedAt.remove(oldest.getKey());
+                version.increment();
+            } finally {
+                evictionLockTimers.unlock(lock, acquired);
+            }
+            evicted++;
+            excess--;
+        }
+        return evicted;
+    }
+
+    // Drops up to `budget` tombstones, oldest eviction first, that were evicted before `cutoff` (if set)
+    // or are beyond `maxEvicted` (if > 0), the limits evictOldest applies to live orders. Their spend
+    // stays on the leaderboard and is folded into the customer's aggregate; a late event for such an
+    // order counts as a new order. Called from the retention thread only.
+    public int expireEvicted(Instant cutoff, int maxEvicted, int budget) {
+        int expired = 0;
+        while (expired < budget) {
+            EvictedOrder oldest = evictionQueue.peek();
+            if (oldest == null) {
+                break;
+            }
+            // Left behind by an order that came back after its eviction
+            boolean stale = evictedOrders.get(oldest.orderId) != oldest;
+            boolean aged = cutoff != null && oldest.evictedAt.isBefore(cutoff);
+            if (!stale && !aged && (maxEvicted <= 0 || evictedOrders.size() <= maxEvicted)) {
+                break;
+            }
+            evictionQueue.poll();
+            if (stale) {
+                continue;
+            }
+            Stripe lock = lockFor(oldest.orderId);
+            long acquired = evictionLockTimers.lock(lock);
+            try {
+                if (evictedOrders.remove(oldest.orderId, oldest) && oldest.customerId != null) {
+                    foldedSpend.merge(oldest.customerId,
+                            new FoldedSpend(LoyaltyLeaderboard.centsOf(oldest.totalAmount), 1), FoldedSpend::plus);
+                }
+            } finally {
+                evictionLockTimers.unlock(lock, acquired);
+            }
+            expired++;
+        }
+        return expired;
+    }
+
+    public int getEvictedOrderCount() {
+        return evictedOrders.size();
+    }
+
+    // Snapshot sections, each a run of tagged records
+    private static final byte SNAPSHOT_CUSTOMER = 1;
+    private static final byte SNAPSHOT_LINE_ITEMS = 2;
+    private static final byte SNAPSHOT_ORDER = 3;
+    private static final byte SNAPSHOT_TOMBSTONE = 5;
+    private static final byte SNAPSHOT_FOLDED_SPEND = 6;
+    private static final byte SNAPSHOT_END = 0;
+
+    // Streams the store without blocking writers; each entity is written as last published
+    public void writeTo(DataOutput out) throws IOException {
+        for (Customer customer : customers.values()) {
+            out.writeByte(SNAPSHOT_CUSTOMER);
+            out.writeUTF(customer.getId());
+            writeNullableUTF(out, customer.getName());
+            writeNullableUTF(out, customer.getEmail());
+        }
+        lineItems.forEachOrder((orderId, items) -> {
+            out.writeByte(SNAPSHOT_LINE_ITEMS);
+            out.writeUTF(orderId);
+            out.writeInt(items.size());
+            for (LineItem li : items) {
+                out.writeUTF(li.getId());
+                writeNullableUTF(out, li.getProductName());
+                out.writeInt(li.getQuantity());
+                out.writeDouble(li.getUnitPrice());
+            }
+        });
         for (Order order : orders.values()) {
-            if (order != null && order.getCustomerId() != null) {
-                totalSpendByCustomer.merge(
-                        order.getCustomerId(),
-                        order.getTotalAmount(),
-                        Double::sum
-                );
-            }
-        }
-
-        // Build loyalty views
-        List<LoyaltyView> loyaltyViews = new ArrayList<>();
-        for (Map.Entry<String, Double> entry : totalSpendByCustomer.entrySet()) {
-            String customerId = entry.getKey();
-            double totalSpend = entry.getValue();
-            long loyaltyPoints = (long) (totalSpend * 100);
-            
-            Customer customer = customers.get(customerId);
-            String customerName = customer != null ? customer.getName() : "Unknown";
-            
-            loyaltyViews.add(new LoyaltyView(customerId, customerName, totalSpend, loyaltyPoints));
+            out.writeByte(SNAPSHOT_ORDER);
+            out.writeUTF(order.getId());
+            writeNullableUTF(out, order.getCustomerId());
+            out.writeDouble(order.getTotalAmount());
+            Instant createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : Instant.EPOCH;
+            out.writeLong(createdAt.getEpochSecond());
+            out.writeInt(createdAt.getNano());
+        }
+        // In eviction order, so the restored queue expires them in the same order
+        for (EvictedOrder tombstone : evictionQueue) {
+            if (evictedOrders.get(tombstone.orderId) != tombstone) {
+                continue;
+            }
+            out.writeByte(SNAPSHOT_TOMBSTONE);
+            out.writeUTF(tombstone.orderId);
+            writeNullableUTF(out, tombstone.customerId);
+            out.writeDouble(tombstone.totalAmount);
+            out.writeLong(tombstone.createdAt.getEpochSecond());
+            out.writeInt(tombstone.createdAt.getNano());
+            out.writeLong(tombstone.evictedAt.toEpochMilli());
+        }
+        for (Map.Entry<String, FoldedSpend> entry : foldedSpend.entrySet()) {
+            out.writeByte(SNAPSHOT_FOLDED_SPEND);
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue().spendCents);
+            out.writeInt(entry.getValue().orderCount);
+        }
+        out.writeByte(SNAPSHOT_END);
+    }
+
+    // Replays a snapshot through the regular upsert paths so every index and aggregate is rebuilt
+    public void readFrom(DataInput in) throws IOException {
+        for (byte tag = in.readByte(); tag != SNAPSHOT_END; tag = in.readByte()) {
+            switch (tag) {
+                case SNAPSHOT_CUSTOMER:
+                    upsertCustomer(new Customer(in.readUTF(), readNullableUTF(in), readNullableUTF(in)));
+                    break;
+                case SNAPSHOT_LINE_ITEMS: {
+                    String orderId = in.readUTF();
+                    int count = in.readInt();
+                    List<LineItem> items = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        items.add(new LineItem(in.readUTF(), orderId, readNullableUTF(in), in.readInt(), in.readDouble()));
+                    }
+                    upsertLineItems(items);
+                    break;
+                }
+                case SNAPSHOT_ORDER:
+                    upsertOrder(new Order(in.readUTF(), readNullableUTF(in), in.readDouble(),
+                            Instant.ofEpochSecond(in.readLong(), in.readInt())));
+                    break;
+                case SNAPSHOT_TOMBSTONE:
+                    restoreEvicted(new EvictedOrder(in.readUTF(), readNullableUTF(in), in.readDouble(),
+                            Instant.ofEpochSecond(in.readLong(), in.readInt()), Instant.ofEpochMilli(in.readLong())));
+                    break;
+                case SNAPSHOT_FOLDED_SPEND: {
+                    String customerId = in.readUTF();
+                    FoldedSpend folded = new FoldedSpend(in.readLong(), in.readInt());
+                    Stripe lock = customerLocks[stripeOf(customerId)];
+                    lock.lock();
+                    lock.beginWrite();
+                    try {
+                        foldedSpend.merge(customerId, folded, FoldedSpend::plus);
+                        leaderboard.addOrders(customerId, folded.spendCents, folded.orderCount);
+                        version.increment();
+                    } finally {
+                        lock.endWrite();
+                        lock.unlock();
+                    }
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown snapshot record tag " + tag);
+            }
+        }
+        version.increment();
+    }
+
+    private void restoreEvicted(EvictedOrder tombstone) {
+        Stripe lock = lockFor(tombstone.orderId);
+        long acquired = evictionLockTimers.lock(lock);
+        try {
+            if (!orders.containsKey(tombstone.orderId) && evictedOrders.putIfAbsent(tombstone.orderId, tombstone) == null) {
+                evictionQueue.add(tombstone);
+                leaderboard.addOrder(tombstone.customerId, tombstone.totalAmount);
+                revenue.add(tombstone.createdAt, 1, tombstone.totalAmount);
+                version.increment();
+            }
+        } finally {
+            evictionLockTimers.unlock(lock, acquired);
+        }
+    }
+
+    private static void writeNullableUTF(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    public long getVersion() {
+        return version.sum();
+    }
+
+    // Builds `view` from a state no write changed while it ran, i.e. as of one version. Reads run
+    // optimistically and are kept if no stripe was being written before and no stripe's write sequence
+    // moved after; after a few overlapped attempts the read takes every stripe and runs once more.
+    // Callers combining several views into one response wrap them all in a single read.
+    public <T> T read(Supplier<T> view) {
+        if (reading.get()) {
+            return view.get();
+        }
+        reading.set(Boolean.TRUE);
+        try {
+            for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+                long before = writeSequence();
+                if (before < 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                T result;
+                try {
+                    result = view.get();
+                } catch (RuntimeException | Error e) {
+                    // Only a failure on a state that held still is the view's own; otherwise try again
+                    if (unchangedSince(before)) {
+                        throw e;
+                    }
+                    continue;
+                }
+                if (unchangedSince(before)) {
+                    return result;
+                }
+            }
+            return lockedRead(view);
+        } finally {
+            reading.set(Boolean.FALSE);
         }
+    }
+
+    // Customer stripes before order stripes, each in ascending order, as writers take them
+    private <T> T lockedRead(Supplier<T> view) {
+        for (Stripe lock : customerLocks) {
+            lock.lock();
+        }
+        for (Stripe lock : orderLocks) {
+            lock.lock();
+        }
+        try {
+            lockedReads.increment();
+            return view.get();
+        } finally {
+            for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+                orderLocks[i].unlock();
+            }
+            for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+                customerLocks[i].unlock();
+            }
+        }
+    }
+
+    // Sum of every stripe's write sequence, or -1 while any stripe is being written. Sequences only
+    // grow, so an equal sum later means no stripe was written in between.
+    private long writeSequence() {
+        long sum = 0;
+        for (Stripe lock : customerLocks) {
+            long seq = lock.seq;
+            if ((seq & 1) != 0) {
+                return -1;
+            }
+            sum += seq;
+        }
+        for (Stripe lock : orderLocks) {
+            long seq = lock.seq;
+            if ((seq & 1) != 0) {
+                return -1;
+            }
+            sum += seq;
+        }
+        return sum;
+    }
 
-        // Sort by loyalty points descending
-        return loyaltyViews.stream()
-                .sorted(Comparator.comparing(LoyaltyView::getLoyaltyPoints).reversed())
-                .collect(Collectors.toList());
+    private boolean unchangedSince(long before) {
+        // The view's loads complete before the sequences are read again
+        VarHandle.loadLoadFence();
+        return writeSequence() == before;
     }
 
-    public synchronized int getCustomerCount() {
+    public List<OrderView> getRecentOrders(int limit) {
+        return getRecentOrdersPage(limit, null).getItems();
+    }
+
+    // Newest first, continuing after `cursor` (null for the first page). A page walks the recency
+    // index from the cursor's (createdAt, id), so deep pages cost the same as the first.
+    // Throws IllegalArgumentException for a malformed cursor.
+    public Page<OrderView> getRecentOrdersPage(int limit, String cursor) {
+        return read(() -> {
+            List<MaterializedOrder> newest = newestOrders(limit, orderCursorKey(cursor));
+            List<OrderView> views = new ArrayList<>(newest.size());
+            for (MaterializedOrder order : newest) {
+                views.add(order.orderView);
+            }
+            return new Page<>(views, nextOrderCursor(newest, limit));
+        });
+    }
+
+    // Orders matching every given filter (null matches anything), newest first, paged like
+    // getRecentOrdersPage: customer, createdAt in [from, to), total of at least minTotal. A customer
+    // filter walks that customer's time-ordered index; otherwise a date range walks the
+    // recency index over just that range. A minimum total alone is served from the amount index
+    // instead, highest total first with its own cursor, so a page touches only the orders it returns.
+    public Page<OrderView> findOrders(String customerId, Instant from, Instant to, Double minTotal,
+                                      int limit, String cursor) {
+        return read(() -> {
+            if (customerId == null && from == null && to == null && minTotal != null) {
+                return highestOrders(minTotal, limit, cursor);
+            }
+            OrderKey before = orderCursorKey(cursor);
+            if (to != null) {
+                OrderKey end = new OrderKey(to, "");
+                before = before == null || end.compareTo(before) < 0 ? end : before;
+            }
+            OrderKey start = from != null ? new OrderKey(from, "") : null;
+            List<MaterializedOrder> found;
+            if (customerId != null) {
+                found = newestOrdersOf(customerId, limit, start, before,
+                        minTotal == null ? null : m -> m.order.getTotalAmount() >= minTotal);
+            } else {
+                found = newestOrders(limit, start, before,
+                        minTotal == null ? null : m -> m.order.getTotalAmount() >= minTotal);
+            }
+            List<OrderView> views = new ArrayList<>(found.size());
+            for (MaterializedOrder order : found) {
+                views.add(order.orderView);
+            }
+            return new Page<>(views, nextOrderCursor(found, limit));
+        });
+    }
+
+    // Views among the newest `limit` orders that changed themselves or whose customer changed
+    public List<OrderView> getChangedRecentOrders(int limit, Set<String> orderIds, Set<String> customerIds) {
+        return read(() -> {
+            List<OrderView> views = new ArrayList<>();
+            for (MaterializedOrder order : newestOrders(limit, null)) {
+                if (isAffected(order.order, orderIds, customerIds)) {
+                    views.add(order.orderView);
+                }
+            }
+            return views;
+        });
+    }
+
+    // Changed orders that aren't among the newest `limit` (any more): evicted, or moved out of the
+    // window by a createdAt change. Pushed as removals so clients drop rows they still show.
+    public List<String> getOrderIdsOutsideNewest(int limit, Set<String> orderIds) {
+        return read(() -> {
+            Set<String> newest = new HashSet<>();
+            for (MaterializedOrder order : newestOrders(limit, null)) {
+                newest.add(order.order.getId());
+            }
+            List<String> outside = new ArrayList<>();
+            for (String orderId : orderIds) {
+                if (!newest.contains(orderId)) {
+                    outside.add(orderId);
+                }
+            }
+            return outside;
+        });
+    }
+
+    public List<LoyaltyView> getLoyaltyByCustomer() {
+        return getLoyaltyByCustomer(0);
+    }
+
+    // Already ranked by loyalty points descending; limit <= 0 returns every customer
+    public List<LoyaltyView> getLoyaltyByCustomer(int limit) {
+        return getLoyaltyPage(limit, null).getItems();
+    }
+
+    // Ranked like getLoyaltyByCustomer, continuing after `cursor`'s (points, customerId); the
+    // leaderboard is entered at that position rather than walked from the top.
+    // Throws IllegalArgumentException for a malformed cursor.
+    public Page<LoyaltyView> getLoyaltyPage(int limit, String cursor) {
+        return read(() -> {
+            List<LoyaltyLeaderboard.Standing> standings;
+            if (cursor == null) {
+                standings = leaderboard.top(limit);
+            } else {
+                String[] parts = PageCursor.decode(cursor, 2);
+                standings = leaderboard.after(PageCursor.decodeLong(parts[0]), parts[1], limit);
+            }
+            List<LoyaltyView> loyaltyViews = new ArrayList<>(standings.size());
+            for (LoyaltyLeaderboard.Standing standing : standings) {
+                loyaltyViews.add(new LoyaltyView(standing.getCustomerId(), customerNameOf(standing.getCustomerId()),
+                        standing.getTotalSpend(), standing.getLoyaltyPoints()));
+            }
+            String next = null;
+            if (limit > 0 && standings.size() == limit) {
+                LoyaltyLeaderboard.Standing last = standings.get(standings.size() - 1);
+                next = PageCursor.encode(Long.toString(last.getLoyaltyPoints()), last.getCustomerId());
+            }
+            return new Page<>(loyaltyViews, next);
+        });
+    }
+
+    public int getCustomerCount() {
         return customers.size();
     }
 
-    public synchronized int getOrderCount() {
+    public int getOrderCount() {
         return orders.size();
     }
 
-    public synchronized Set<String> getCustomerIds() {
-        return customers.keySet();
-    }
-
-    public synchronized Set<String> getOrderCustomerIds() {
-        return orders.values().stream()
-                .filter(order -> order != null && order.getCustomerId() != null)
-                .map(Order::getCustomerId)
-                .collect(Collectors.toSet());
-    }
-
-    public synchronized List<WarehouseView> getWarehouseOrders(int limit) {
-        return orders.values().stream()
-                .filter(order -> order != null && order.getId() != null)
-                .sorted(Comparator.comparing(
-                    (Order order) -> order.getCreatedAt() != null ? order.getCreatedAt() : Instant.EPOCH,
-                    Comparator.nullsLast(Comparator.naturalOrder())
-                ).reversed())
-                .limit(limit)
-                .map(order -> {
-                    String customerId = order.getCustomerId();
-                    Customer customer = customerId != null ? customers.get(customerId) : null;
-                    String customerName = customer != null ? customer.getName() : "Unknown";
-                    
-                    // Get line items for this order
-                    List<LineItem> lineItems = lineItemsByOrder.getOrDefault(order.getId(), new ArrayList<>());
-                    List<WarehouseView.LineItemView> itemViews = lineItems.stream()
-                            .map(li -> new WarehouseView.LineItemView(
-                                    li.getProductName() != null ? li.getProductName() : "Unknown Product",
-                                    li.getQuantity()
-                            ))
-                            .collect(Collectors.toList());
-                    
-                    return new WarehouseView(
-                            order.getId(),
-                            customerName,
-                            order.getCreatedAt() != null ? order.getCreatedAt() : Instant.now(),
-                            itemViews
-                    );
-                })
-                .collect(Collectors.toList());
+    // Distinct customers among the orders held
+    public int getOrderCustomerCount() {
+        return ordersByCustomer.size();
+    }
+
+    // Customers referenced by held orders whose profile hasn't arrived
+    public int getMissingCustomerCount() {
+        return missingCustomers.size();
+    }
+
+    // Held orders whose customer profile hasn't arrived, kept as orders are indexed and customers arrive
+    public long getOrphanOrderCount() {
+        return orphanOrders.sum();
+    }
+
+    public List<String> sampleMissingCustomerIds(int max) {
+        List<String> sample = new ArrayList<>(Math.min(max, 64));
+        for (String customerId : missingCustomers) {
+            if (sample.size() >= max) {
+                break;
+            }
+            sample.add(customerId);
+        }
+        return sample;
+    }
+
+    // Up to `max` held orders whose customer profile hasn't arrived, newest of each customer first
+    public List<String> sampleOrphanOrderIds(int max) {
+        List<String> sample = new ArrayList<>(Math.min(max, 64));
+        for (String customerId : missingCustomers) {
+            NavigableSet<OrderKey> keys = ordersByCustomer.get(customerId);
+            if (keys == null) {
+                continue;
+            }
+            for (OrderKey key : keys.descendingSet()) {
+                if (sample.size() >= max) {
+                    return sample;
+                }
+                sample.add(key.orderId);
+            }
+        }
+        return sample;
+    }
+
+    public List<WarehouseView> getWarehouseOrders(int limit) {
+        return getWarehouseOrdersPage(limit, null).getItems();
+    }
+
+    // Paged like getRecentOrdersPage; cursors of the two are interchangeable
+    public Page<WarehouseView> getWarehouseOrdersPage(int limit, String cursor) {
+        return read(() -> {
+            List<MaterializedOrder> newest = newestOrders(limit, orderCursorKey(cursor));
+            List<WarehouseView> views = new ArrayList<>(newest.size());
+            for (MaterializedOrder order : newest) {
+                views.add(order.warehouseView(lineItems));
+            }
+            return new Page<>(views, nextOrderCursor(newest, limit));
+        });
+    }
+
+    public List<WarehouseView> getChangedWarehouseOrders(int limit, Set<String> orderIds, Set<String> customerIds) {
+        return read(() -> {
+            List<WarehouseView> views = new ArrayList<>();
+            for (MaterializedOrder order : newestOrders(limit, null)) {
+                if (isAffected(order.order, orderIds, customerIds)) {
+                    views.add(order.warehouseView(lineItems));
+                }
+            }
+            return views;
+        });
+    }
+
+    // Count, revenue and average basket per minute, hour and day as of now; evicted orders keep counting
+    public List<RevenueWindow> getRevenueWindows() {
+        return read(() -> revenue.snapshot(System.currentTimeMillis()));
     }
-}
 
+    public List<ProductSalesView> getTopProductsByQuantity(int limit) {
+        return read(() -> productSales.topByQuantity(limit));
+    }
+
+    public List<ProductSalesView> getTopProductsByRevenue(int limit) {
+        return read(() -> productSales.topByRevenue(limit));
+    }
+
+    // Profile, lifetime spend (evicted orders included) and a page of recent orders; null when the
+    // customer has neither a profile nor any orders
+    public CustomerView getCustomer(String customerId, int limit, String cursor) {
+        return read(() -> {
+            Customer customer = customers.get(customerId);
+            LoyaltyLeaderboard.Standing standing = leaderboard.get(customerId);
+            if (customer == null && standing == null) {
+                return null;
+            }
+            List<MaterializedOrder> recent = newestOrdersOf(customerId, limit, null, orderCursorKey(cursor), null);
+            List<OrderView> views = new ArrayList<>(recent.size());
+            for (MaterializedOrder order : recent) {
+                views.add(order.orderView);
+            }
+            return new CustomerView(customerId,
+                    customer != null ? customer.getName() : null,
+                    customer != null ? customer.getEmail() : null,
+                    standing != null ? standing.getTotalSpend() : 0.0,
+                    standing != null ? standing.getLoyaltyPoints() : 0L,
+                    standing != null ? standing.getOrderCount() : 0,
+                    views,
+                    nextOrderCursor(recent, limit));
+        });
+    }
+
+    // Null when the customer no longer has any orders on the leaderboard
+    public LoyaltyView getLoyaltyView(String customerId) {
+        return read(() -> {
+            LoyaltyLeaderboard.Standing standing = leaderboard.get(customerId);
+            if (standing == null) {
+                return null;
+            }
+            return new LoyaltyView(customerId, customerNameOf(customerId), standing.getTotalSpend(), standing.getLoyaltyPoints());
+        });
+    }
+
+    // Hands over everything changed since the previous call. Ids added concurrently are either
+    // included here or left for the next drain, never lost.
+    public ChangeSet drainChanges() {
+        return new ChangeSet(drain(changedOrderIds), drain(changedCustomerIds));
+    }
+
+    private static Set<String> drain(Set<String> changed) {
+        Set<String> drained = new HashSet<>();
+        for (Iterator<String> it = changed.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    private void markCustomerChanged(String customerId) {
+        if (customerId != null) {
+            changedCustomerIds.add(customerId);
+        }
+    }
+
+    private static boolean isAffected(Order order, Set<String> orderIds, Set<String> customerIds) {
+        return orderIds.contains(order.getId())
+                || (order.getCustomerId() != null && customerIds.contains(order.getCustomerId()));
+    }
+
+    private String customerNameOf(String customerId) {
+        Customer customer = customerId != null ? customers.get(customerId) : null;
+        return customer != null ? customer.getName() : "Unknown";
+    }
+
+    // Caller holds the order's stripe lock
+    private MaterializedOrder materialize(Order order) {
+        OrderView view = new OrderView(
+                order.getId(),
+                customerNameOf(order.getCustomerId()),
+                order.getTotalAmount(),
+                order.getCreatedAt() != null ? order.getCreatedAt() : Instant.now()
+        );
+        return new MaterializedOrder(order, view);
+    }
+
+    private void indexCustomerOrder(String customerId, OrderKey key) {
+        if (customerId == null) {
+            return;
+        }
+        ordersByCustomer.compute(customerId, (id, keys) -> {
+            NavigableSet<OrderKey> updated = keys;
+            if (updated == null) {
+                updated = new ConcurrentSkipListSet<>();
+                // Re-checked after adding: applyCustomer publishes the profile before removing the id
+                if (!customers.containsKey(id)) {
+                    missingCustomers.add(id);
+                    if (customers.containsKey(id)) {
+                        missingCustomers.remove(id);
+                    }
+                }
+            }
+            if (updated.add(key) && missingCustomers.contains(id)) {
+                orphanOrders.increment();
+            }
+            return updated;
+        });
+    }
+
+    private void unindexCustomerOrder(String customerId, OrderKey key) {
+        if (customerId == null) {
+            return;
+        }
+        ordersByCustomer.computeIfPresent(customerId, (id, keys) -> {
+            if (keys.remove(key) && missingCustomers.contains(id)) {
+                orphanOrders.decrement();
+            }
+            if (keys.isEmpty()) {
+                missingCustomers.remove(id);
+                return null;
+            }
+            return keys;
+        });
+    }
+
+    private Stripe lockFor(String orderId) {
+        return orderLocks[stripeOf(orderId)];
+    }
+
+    private static int stripeOf(String orderId) {
+        int h = orderId != null ? orderId.hashCode() : 0;
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private <T> int[] stripesFor(List<T> batch, Function<T, String> orderId) {
+        boolean[] seen = new boolean[LOCK_STRIPES];
+        int count = 0;
+        for (T item : batch) {
+            int stripe = stripeOf(orderId.apply(item));
+            if (!seen[stripe]) {
+                seen[stripe] = true;
+                count++;
+            }
+        }
+        // Ascending stripe order keeps concurrent batch writers deadlock-free
+        int[] stripes = new int[count];
+        for (int i = 0, n = 0; i < LOCK_STRIPES; i++) {
+            if (seen[i]) {
+                stripes[n++] = i;
+            }
+        }
+        return stripes;
+    }
+
+    // Returns when the last stripe was acquired; the wait covers acquiring all of them
+    private long lockStripes(int[] stripes, LockTimers timers) {
+        long start = System.nanoTime();
+        for (int stripe : stripes) {
+            orderLocks[stripe].lock();
+            orderLocks[stripe].beginWrite();
+        }
+        long acquired = System.nanoTime();
+        timers.waited(acquired - start);
+        return acquired;
+    }
+
+    private void unlockStripes(int[] stripes, long acquired, LockTimers timers) {
+        long held = System.nanoTime() - acquired;
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            orderLocks[stripes[i]].endWrite();
+            orderLocks[stripes[i]].unlock();
+        }
+        timers.held(held);
+    }
+
+    private OrderShard shardOf(String orderId) {
+        return shards[stripeOf(orderId) % shards.length];
+    }
+
+    private List<MaterializedOrder> newestOrders(int limit, OrderKey before) {
+        return newestOrders(limit, null, before, null);
+    }
+
+    // Merges the shards from their newest ends, or from just below `before`, taking the newest
+    // remaining head each time and stopping at `from`. Orders failing `filter` are skipped.
+    // limit <= 0 returns every order.
+    private List<MaterializedOrder> newestOrders(int limit, OrderKey from, OrderKey before,
+                                                 Predicate<MaterializedOrder> filter) {
+        int max = limit > 0 ? limit : Integer.MAX_VALUE;
+        List<MaterializedOrder> newest = new ArrayList<>(Math.min(max, 128));
+        if (shards.length == 1) {
+            for (MaterializedOrder order : range(shards[0], from, before).descendingMap().values()) {
+                if (newest.size() >= max) {
+                    break;
+                }
+                if (filter == null || filter.test(order)) {
+                    newest.add(order);
+                }
+            }
+            return newest;
+        }
+        PriorityQueue<ShardCursor> heads = new PriorityQueue<>(shards.length);
+        for (OrderShard shard : shards) {
+            NavigableMap<OrderKey, MaterializedOrder> older = range(shard, from, before);
+            ShardCursor cursor = new ShardCursor(older.descendingMap().entrySet().iterator());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        while (newest.size() < max && !heads.isEmpty()) {
+            ShardCursor cursor = heads.poll();
+            MaterializedOrder order = cursor.head.getValue();
+            if (filter == null || filter.test(order)) {
+                newest.add(order);
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return newest;
+    }
+
+    private static NavigableMap<OrderKey, MaterializedOrder> range(OrderShard shard, OrderKey from, OrderKey before) {
+        NavigableMap<OrderKey, MaterializedOrder> older = before != null
+                ? shard.byCreatedAt.headMap(before, false) : shard.byCreatedAt;
+        return from != null ? older.tailMap(from, true) : older;
+    }
+
+    // A customer's orders newest first, from just below `before` down to `from`, like newestOrders
+    private List<MaterializedOrder> newestOrdersOf(String customerId, int limit, OrderKey from, OrderKey before,
+                                                   Predicate<MaterializedOrder> filter) {
+        int max = limit > 0 ? limit : Integer.MAX_VALUE;
+        List<MaterializedOrder> newest = new ArrayList<>(Math.min(max, 128));
+        NavigableSet<OrderKey> keys = ordersByCustomer.get(customerId);
+        if (keys == null) {
+            return newest;
+        }
+        NavigableSet<OrderKey> range = before != null ? keys.headSet(before, false) : keys;
+        if (from != null) {
+            range = range.tailSet(from, true);
+        }
+        for (OrderKey key : range.descendingSet()) {
+            if (newest.size() >= max) {
+                break;
+            }
+            // A key left behind for an instant by an order moving to another customer or createdAt
+            MaterializedOrder order = shardOf(key.orderId).byCreatedAt.get(key);
+            if (order != null && customerId.equals(order.order.getCustomerId())
+                    && (filter == null || filter.test(order))) {
+                newest.add(order);
+            }
+        }
+        return newest;
+    }
+
+    // Orders with a total of at least minTotal, highest total first (ties by id), continuing below the
+    // cursor's (totalAmount, id). Walks the amount index down and stops after `limit` orders.
+    private Page<OrderView> highestOrders(double minTotal, int limit, String cursor) {
+        int max = limit > 0 ? limit : Integer.MAX_VALUE;
+        NavigableSet<AmountKey> range = byTotalAmount.tailSet(new AmountKey(minTotal, ""), true);
+        AmountKey after = amountCursorKey(cursor);
+        if (after != null) {
+            range = range.headSet(after, false);
+        }
+        List<OrderView> views = new ArrayList<>(Math.min(max, 128));
+        AmountKey last = null;
+        for (AmountKey key : range.descendingSet()) {
+            if (views.size() >= max) {
+                break;
+            }
+            // A key left behind for an instant by an order whose total is changing
+            Order order = orders.get(key.orderId);
+            if (order == null || order.getTotalAmount() != key.totalAmount) {
+                continue;
+            }
+            MaterializedOrder materialized = shardOf(key.orderId).byCreatedAt.get(OrderKey.of(order));
+            if (materialized != null) {
+                views.add(materialized.orderView);
+                last = key;
+            }
+        }
+        String next = limit > 0 && views.size() == limit
+                ? PageCursor.encode(Long.toString(Double.doubleToLongBits(last.totalAmount)), last.orderId)
+                : null;
+        return new Page<>(views, next);
+    }
+
+    private static AmountKey amountCursorKey(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        String[] parts = PageCursor.decode(cursor, 2);
+        return new AmountKey(Double.longBitsToDouble(PageCursor.decodeLong(parts[0])), parts[1]);
+    }
+
+    private static OrderKey orderCursorKey(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        String[] parts = PageCursor.decode(cursor, 3);
+        try {
+            return new OrderKey(Instant.ofEpochSecond(PageCursor.decodeLong(parts[0]), PageCursor.decodeLong(parts[1])),
+                    parts[2]);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    // Null once a page comes back short, i.e. the index is exhausted, or for an unlimited page
+    private static String nextOrderCursor(List<MaterializedOrder> page, int limit) {
+        if (limit <= 0 || page.isEmpty() || page.size() < limit) {
+            return null;
+        }
+        OrderKey last = OrderKey.of(page.get(page.size() - 1).order);
+        return PageCursor.encode(Long.toString(last.createdAt.getEpochSecond()),
+                Integer.toString(last.createdAt.getNano()), last.orderId);
+    }
+
+    private Map.Entry<OrderKey, MaterializedOrder> oldestEntry() {
+        Map.Entry<OrderKey, MaterializedOrder> oldest = null;
+        for (OrderShard shard : shards) {
+            Map.Entry<OrderKey, MaterializedOrder> first = shard.byCreatedAt.firstEntry();
+            if (first != null && (oldest == null || first.getKey().compareTo(oldest.getKey()) < 0)) {
+                oldest = first;
+            }
+        }
+        return oldest;
+    }
+
+    private static final class OrderShard {
+        private final NavigableMap<OrderKey, MaterializedOrder> byCreatedAt = new ConcurrentSkipListMap<>();
+    }
+
+    // An order with its published views; replaced, never modified, when anything they show changes.
+    // The warehouse view lists every line item, so it is built by the first read after a change
+    // rather than by each line item write; concurrent first reads may both build it, harmlessly.
+    private static final class MaterializedOrder {
+        private final Order order;
+        private final OrderView orderView;
+        private volatile WarehouseView warehouseView;
+
+        private MaterializedOrder(Order order, OrderView orderView) {
+            this.order = order;
+            this.orderView = orderView;
+        }
+
+        WarehouseView warehouseView(LineItemStore lineItems) {
+            WarehouseView view = warehouseView;
+            if (view == null) {
+                List<LineItem> items = lineItems.get(order.getId());
+                List<WarehouseView.LineItemView> itemViews = new ArrayList<>(items.size());
+                int totalItems = 0;
+                for (LineItem li : items) {
+                    itemViews.add(new WarehouseView.LineItemView(
+                            li.getProductName() != null ? li.getProductName() : "Unknown Product",
+                            li.getQuantity()
+                    ));
+                    totalItems += li.getQuantity();
+                }
+                view = new WarehouseView(order.getId(), orderView.getCustomerName(), orderView.getCreatedAt(),
+                        itemViews, totalItems);
+                warehouseView = view;
+            }
+            return view;
+        }
+    }
+
+    // A shard's descending iterator with its current entry; newer heads sort first
+    private static final class ShardCursor implements Comparable<ShardCursor> {
+        private final Iterator<Map.Entry<OrderKey, MaterializedOrder>> entries;
+        private Map.Entry<OrderKey, MaterializedOrder> head;
+
+        private ShardCursor(Iterator<Map.Entry<OrderKey, MaterializedOrder>> entries) {
+            this.entries = entries;
+        }
+
+        boolean advance() {
+            head = entries.hasNext() ? entries.next() : null;
+            return head != null;
+        }
+
+        @Override
+        public int compareTo(ShardCursor other) {
+            return other.head.getKey().compareTo(head.getKey());
+        }
+    }
+
+    // Sort key for the amount index, ties broken by id
+    private static final class AmountKey implements Comparable<AmountKey> {
+        private final double totalAmount;
+        private final String orderId;
+
+        private AmountKey(double totalAmount, String orderId) {
+            this.totalAmount = totalAmount;
+            this.orderId = orderId;
+        }
+
+        static AmountKey of(Order order) {
+            return new AmountKey(order.getTotalAmount(), order.getId());
+        }
+
+        @Override
+        public int compareTo(AmountKey other) {
+            int cmp = Double.compare(totalAmount, other.totalAmount);
+            return cmp != 0 ? cmp : orderId.compareTo(other.orderId);
+        }
+    }
+
+    // Sort key for the recency index; orders without a timestamp sort as EPOCH, ties broken by id
+    private static final class OrderKey implements Comparable<OrderKey> {
+        private final Instant createdAt;
+        private final String orderId;
+
+        private OrderKey(Instant createdAt, String orderId) {
+            this.createdAt = createdAt;
+            this.orderId = orderId;
+        }
+
+        static OrderKey of(Order order) {
+            return new OrderKey(order.getCreatedAt() != null ? order.getCreatedAt() : Instant.EPOCH, order.getId());
+        }
+
+        @Override
+        public int compareTo(OrderKey other) {
+            int cmp = createdAt.compareTo(other.createdAt);
+            return cmp != 0 ? cmp : orderId.compareTo(other.orderId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof OrderKey)) {
+                return false;
+            }
+            OrderKey other = (OrderKey) o;
+            return createdAt.equals(other.createdAt) && orderId.equals(other.orderId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * createdAt.hashCode() + orderId.hashCode();
+        }
+    }
+
+    // A stripe lock whose holder marks its writes in `seq`: odd from beginWrite to endWrite. Only the
+    // holder writes it; readers compare sums of all stripes' sequences around a view.
+    private static final class Stripe extends ReentrantLock {
+        private volatile long seq;
+
+        void beginWrite() {
+            seq = seq + 1;
+            // The odd sequence is visible before any of the write's stores
+            VarHandle.storeStoreFence();
+        }
+
+        void endWrite() {
+            seq = seq + 1;
+        }
+    }
+
+    private static final class LockTimers {
+        private final Timer wait;
+        private final Timer hold;
+
+        private LockTimers(MeterRegistry registry, String writer) {
+            wait = Timer.builder("dashboard.state.lock.wait")
+                    .description("Time writers wait to acquire order stripe locks")
+                    .tag("writer", writer)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            hold = Timer.builder("dashboard.state.lock.hold")
+                    .description("Time writers hold order stripe locks")
+                    .tag("writer", writer)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        // Returns the acquisition time to hand back to unlock
+        long lock(Stripe lock) {
+            long start = System.nanoTime();
+            lock.lock();
+            lock.beginWrite();
+            long acquired = System.nanoTime();
+            waited(acquired - start);
+            return acquired;
+        }
+
+        void unlock(Stripe lock, long acquired) {
+            long held = System.nanoTime() - acquired;
+            lock.endWrite();
+            lock.unlock();
+            held(held);
+        }
+
+        void waited(long nanos) {
+            wait.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        void held(long nanos) {
+            hold.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public static final class ChangeSet {
+        private final Set<String> orderIds;
+        private final Set<String> customerIds;
+
+        private ChangeSet(Set<String> orderIds, Set<String> customerIds) {
+            this.orderIds = orderIds;
+            this.customerIds = customerIds;
+        }
+
+        public Set<String> getOrderIds() {
+            return orderIds;
+        }
+
+        public Set<String> getCustomerIds() {
+            return customerIds;
+        }
+
+        public boolean isEmpty() {
+            return orderIds.isEmpty() && customerIds.isEmpty();
+        }
+
+        public int size() {
+            return orderIds.size() + customerIds.size();
+        }
+    }
+
+    private static final class EvictedOrder {
+        private final String orderId;
+        private final String customerId;
+        private final double totalAmount;
+        // Where the order sits in the revenue windows
+        private final Instant createdAt;
+        // Retention of the tombstone itself counts from here
+        private final Instant evictedAt;
+
+        private EvictedOrder(String orderId, String customerId, double totalAmount, Instant createdAt, Instant evictedAt) {
+            this.orderId = orderId;
+            this.customerId = customerId;
+            this.totalAmount = totalAmount;
+            this.createdAt = createdAt;
+            this.evictedAt = evictedAt;
+        }
+    }
+
+    private static final class FoldedSpend {
+        // Leaderboard spend, in cents like LoyaltyLeaderboard keeps it
+        private final long spendCents;
+        private final int orderCount;
+
+        private FoldedSpend(long spendCents, int orderCount) {
+            this.spendCents = spendCents;
+            this.orderCount = orderCount;
+        }
+
+        FoldedSpend plus(FoldedSpend other) {
+            return new FoldedSpend(spendCents + other.spendCents, orderCount + other.orderCount);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.globex.dashboard.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque page cursors: the sort key of the last item served, as URL-safe base64 of its parts.
+// The last part may itself contain the separator (ids are free-form).
+final class PageCursor {
+    private static final char SEPARATOR = ':';
+
+    private PageCursor() {
+    }
+
+    static String encode(String... parts) {
+        String joined = String.join(String.valueOf(SEPARATOR), parts);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Throws IllegalArgumentException for anything encode() didn't produce with `count` parts
+    static String[] decode(String cursor, int count) {
+        String joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = joined.split(String.valueOf(SEPARATOR), count);
+        if (parts.length != count) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return parts;
+    }
+
+    static long decodeLong(String part) {
+        try {
+            return Long.parseLong(part);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.globex.dashboard.service;
+
+import com.globex.dashboard.model.LineItem;
+import com.globex.dashboard.model.ProductSalesView;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Units sold and revenue per product, kept up to date from line item deltas and ranked both ways.
+// Up to `capacity` products are counted exactly, so top-K is exact for catalogs that fit. Past that,
+// products outside the tracked set are counted in a count-min sketch, and one whose estimated units
+// overtake the smallest tracked product takes its place (Space-Saving style): memory stays bounded
+// and the tracked set keeps the heavy hitters. The sketch only ever grows (returns and price cuts are
+// not taken back out of it), so totals that start from an estimate overcount but never undercount.
+// Totals are immutable and re-ranked inside
+// ConcurrentHashMap.compute, like LoyaltyLeaderboard; admitting a new product and the sketch path
+// take a lock, which steady-state updates to known products never touch.
+public class ProductSales {
+    private final int capacity;
+    private final ConcurrentHashMap<String, Totals> tracked = new ConcurrentHashMap<>();
+    private final NavigableSet<Totals> byQuantity = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong((Totals t) -> t.quantity).reversed().thenComparing(t -> t.product));
+    private final NavigableSet<Totals> byRevenue = new ConcurrentSkipListSet<>(
+            Comparator.comparingDouble((Totals t) -> t.revenue).reversed().thenComparing(t -> t.product));
+    private final ReentrantLock admission = new ReentrantLock();
+    // Created when the tracked set first fills up; guarded by admission
+    private CountMinSketch overflow;
+
+    public ProductSales(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Product capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    // Moves a line item's contribution from what it replaced (null for a new item) to its new values
+    public void replace(LineItem replaced, LineItem lineItem) {
+        if (replaced != null && lineItem != null && replaced.getProductName() != null
+                && replaced.getProductName().equals(lineItem.getProductName())) {
+            add(lineItem.getProductName(), lineItem.getQuantity() - replaced.getQuantity(),
+                    amountOf(lineItem) - amountOf(replaced));
+            return;
+        }
+        if (replaced != null) {
+            add(replaced.getProductName(), -replaced.getQuantity(), -amountOf(replaced));
+        }
+        if (lineItem != null) {
+            add(lineItem.getProductName(), lineItem.getQuantity(), amountOf(lineItem));
+        }
+    }
+
+    public void add(String product, long quantity, double revenue) {
+        if (product == null || (quantity == 0 && revenue == 0.0)) {
+            return;
+        }
+        if (addTracked(product, quantity, revenue)) {
+            return;
+        }
+        admission.lock();
+        try {
+            if (addTracked(product, quantity, revenue)) {
+                return;
+            }
+            if (overflow == null && tracked.size() < capacity) {
+                track(new Totals(product, quantity, revenue, 0, 0.0));
+                return;
+            }
+            if (overflow == null) {
+                overflow = new CountMinSketch();
+            }
+            overflow.add(product, quantity, revenue);
+            long estimate = overflow.quantityOf(product);
+            Totals smallest = byQuantity.isEmpty() ? null : byQuantity.last();
+            if (smallest != null && estimate > smallest.quantity && tracked.remove(smallest.product, smallest)) {
+                untrack(smallest);
+                // The sketch already holds what the product had when it was promoted; a net decrease
+                // since then is dropped by the sketch
+                overflow.add(smallest.product, smallest.quantity - smallest.sketchedQuantity,
+                        smallest.revenue - smallest.sketchedRevenue);
+                double revenueEstimate = overflow.revenueOf(product);
+                track(new Totals(product, estimate, revenueEstimate, estimate, revenueEstimate));
+            }
+        } finally {
+            admission.unlock();
+        }
+    }
+
+    public List<ProductSalesView> topByQuantity(int limit) {
+        return collect(byQuantity.iterator(), limit);
+    }
+
+    public List<ProductSalesView> topByRevenue(int limit) {
+        return collect(byRevenue.iterator(), limit);
+    }
+
+    // Products counted individually; at capacity once the sketch is in use
+    public int trackedCount() {
+        return tracked.size();
+    }
+
+    private boolean addTracked(String product, long quantity, double revenue) {
+        return tracked.computeIfPresent(product, (name, current) -> {
+            Totals updated = new Totals(name, current.quantity + quantity, current.revenue + revenue,
+                    current.sketchedQuantity, current.sketchedRevenue);
+            untrack(current);
+            rank(updated);
+            return updated;
+        }) != null;
+    }
+
+    // Caller holds admission
+    private void track(Totals totals) {
+        tracked.put(totals.product, totals);
+        rank(totals);
+    }
+
+    private void rank(Totals totals) {
+        byQuantity.add(totals);
+        byRevenue.add(totals);
+    }
+
+    private void untrack(Totals totals) {
+        byQuantity.remove(totals);
+        byRevenue.remove(totals);
+    }
+
+    private static List<ProductSalesView> collect(Iterator<Totals> it, int limit) {
+        List<ProductSalesView> views = new ArrayList<>(Math.min(limit, 1024));
+        while (it.hasNext() && views.size() < limit) {
+            Totals t = it.next();
+            views.add(new ProductSalesView(t.product, t.quantity, t.revenue, t.sketchedQuantity != 0 || t.sketchedRevenue != 0.0));
+        }
+        return views;
+    }
+
+    private static double amountOf(LineItem lineItem) {
+        return lineItem.getUnitPrice() * lineItem.getQuantity();
+    }
+
+    private static final class Totals {
+        private final String product;
+        private final long quantity;
+        private final double revenue;
+        // The sketch estimate the totals started from when the product was promoted, zero for products
+        // counted exactly from their first sale; it may include other products' sales
+        private final long sketchedQuantity;
+        private final double sketchedRevenue;
+
+        private Totals(String product, long quantity, double revenue, long sketchedQuantity, double sketchedRevenue) {
+            this.product = product;
+            this.quantity = quantity;
+            this.revenue = revenue;
+            this.sketchedQuantity = sketchedQuantity;
+            this.sketchedRevenue = sketchedRevenue;
+        }
+    }
+
+    // DEPTH rows of WIDTH counters; a product's estimate is its smallest counter over the rows, which
+    // overcounts by other products colliding with it in every row. Conservative update: an increment
+    // raises each counter only as far as the product's new estimate, and decrements are ignored, since
+    // subtracting from counters shared with other products could take their estimates below their true
+    // totals. Estimates are therefore upper bounds on the units and revenue each product has gained.
+    // Not thread-safe.
+    private static final class CountMinSketch {
+        private static final int DEPTH = 4;
+        private static final int WIDTH = 1 << 14;
+
+        private final long[][] quantities = new long[DEPTH][WIDTH];
+        private final double[][] revenues = new double[DEPTH][WIDTH];
+
+        void add(String product, long quantity, double revenue) {
+            long hash = hash(product);
+            if (quantity > 0) {
+                long target = quantityOf(hash) + quantity;
+                for (int row = 0; row < DEPTH; row++) {
+                    int cell = cellOf(hash, row);
+                    quantities[row][cell] = Math.max(quantities[row][cell], target);
+                }
+            }
+            if (revenue > 0.0) {
+                double target = revenueOf(hash) + revenue;
+                for (int row = 0; row < DEPTH; row++) {
+                    int cell = cellOf(hash, row);
+                    revenues[row][cell] = Math.max(revenues[row][cell], target);
+                }
+            }
+        }
+
+        long quantityOf(String product) {
+            return quantityOf(hash(product));
+        }
+
+        double revenueOf(String product) {
+            return revenueOf(hash(product));
+        }
+
+        private long quantityOf(long hash) {
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                estimate = Math.min(estimate, quantities[row][cellOf(hash, row)]);
+            }
+            return estimate;
+        }
+
+        private double revenueOf(long hash) {
+            double estimate = Double.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                estimate = Math.min(estimate, revenues[row][cellOf(hash, row)]);
+            }
+            return estimate;
+        }
+
+        // Row cells by double hashing the two halves of a mixed 64-bit hash
+        private static int cellOf(long hash, int row) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            return (h1 + row * h2) & (WIDTH - 1);
+        }
+
+        private static long hash(String product) {
+            long h = product.hashCode() * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 29);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.globex.dashboard.service;
+
+import com.globex.dashboard.model.RevenueBucket;
+import com.globex.dashboard.model.RevenueWindow;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Order count and revenue bucketed by order createdAt, per minute, hour and day. Each granularity is
+// a fixed ring of buckets, so a change costs one bucket update per ring and a read walks a constant
+// number of buckets. Changes are applied as deltas at the order's createdAt, which also corrects
+// buckets in the past while they are still in the ring; older changes are dropped. So are changes
+// stamped more than MAX_SKEW_MS ahead of the clock: a bucket from the future would take over the slot
+// of one still on screen. An order that is changed once the clock has caught up with it takes out
+// the contribution it was never counted with, so future-dated orders can skew their bucket slightly.
+public class RevenueWindows {
+    private static final long MAX_SKEW_MS = 5_000L;
+
+    private final Ring[] rings = {
+            new Ring("minute", 60_000L, 60),
+            new Ring("hour", 3_600_000L, 24),
+            new Ring("day", 86_400_000L, 30)
+    };
+
+    public void add(Instant createdAt, long orderDelta, double revenueDelta) {
+        if (createdAt == null || (orderDelta == 0 && revenueDelta == 0.0)) {
+            return;
+        }
+        long tsMs = createdAt.toEpochMilli();
+        if (tsMs > System.currentTimeMillis() + MAX_SKEW_MS) {
+            return;
+        }
+        for (Ring ring : rings) {
+            ring.add(tsMs, orderDelta, revenueDelta);
+        }
+    }
+
+    public List<RevenueWindow> snapshot(long nowMs) {
+        List<RevenueWindow> windows = new ArrayList<>(rings.length);
+        for (Ring ring : rings) {
+            windows.add(ring.snapshot(nowMs));
+        }
+        return windows;
+    }
+
+    // Slot i holds the bucket for epoch createdAt / width once that bucket has been written; a newer
+    // bucket replaces it with a compare-and-set. Writers under different OrderState stripe locks only
+    // meet on the adders of a bucket they both write, so the rings add no lock to the write path. A
+    // delta racing with its bucket's replacement may land in the replaced bucket, which has left the
+    // ring by then.
+    private static final class Ring {
+        private final String granularity;
+        private final long widthMs;
+        private final AtomicReferenceArray<Bucket> slots;
+
+        private Ring(String granularity, long widthMs, int size) {
+            this.granularity = granularity;
+            this.widthMs = widthMs;
+            slots = new AtomicReferenceArray<>(size);
+        }
+
+        void add(long tsMs, long orderDelta, double revenueDelta) {
+            long epoch = Math.floorDiv(tsMs, widthMs);
+            int slot = (int) Math.floorMod(epoch, (long) slots.length());
+            while (true) {
+                Bucket bucket = slots.get(slot);
+                if (bucket != null && bucket.epoch == epoch) {
+                    bucket.orders.add(orderDelta);
+                    bucket.revenue.add(revenueDelta);
+                    return;
+                }
+                if (bucket != null && bucket.epoch > epoch) {
+                    // The slot has moved on to a newer bucket; this one has left the ring
+                    return;
+                }
+                slots.compareAndSet(slot, bucket, new Bucket(epoch));
+            }
+        }
+
+        RevenueWindow snapshot(long nowMs) {
+            long newest = Math.floorDiv(nowMs, widthMs);
+            List<RevenueBucket> buckets = new ArrayList<>(slots.length());
+            long totalOrders = 0;
+            double totalRevenue = 0.0;
+            for (int i = 0; i < slots.length(); i++) {
+                long epoch = newest - i;
+                Bucket bucket = slots.get((int) Math.floorMod(epoch, (long) slots.length()));
+                boolean current = bucket != null && bucket.epoch == epoch;
+                long count = current ? bucket.orders.sum() : 0;
+                double amount = current ? bucket.revenue.sum() : 0.0;
+                buckets.add(new RevenueBucket(Instant.ofEpochMilli(epoch * widthMs), count, amount));
+                totalOrders += count;
+                totalRevenue += amount;
+            }
+            return new RevenueWindow(granularity, widthMs / 1000, totalOrders, totalRevenue, buckets);
+        }
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final LongAdder orders = new LongAdder();
+        private final DoubleAdder revenue = new DoubleAdder();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.globex.dashboard.service;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.apache.kafka.common.TopicPartition;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Periodic binary snapshots of OrderState together with the Kafka offsets they cover. On startup the
+// latest snapshot is loaded before any partition is assigned, and consumers seek just past it.
+@ApplicationScoped
+public class StateSnapshots {
+    private static final Logger LOG = Logger.getLogger(StateSnapshots.class);
+    private static final int MAGIC = 0x47585353; // "GXSS"
+    // 2: evicted orders are only written as tombstones with createdAt and eviction time
+    // 3: folded spend in cents
+    private static final int FORMAT_VERSION = 3;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    @Inject
+    OrderState orderState;
+
+    @Inject
+    AppliedOffsets appliedOffsets;
+
+    @ConfigProperty(name = "dashboard.snapshot.path")
+    Optional<Path> path;
+
+    @ConfigProperty(name = "dashboard.snapshot.interval", defaultValue = "60s")
+    Duration interval;
+
+    private ScheduledExecutorService scheduler;
+
+    // Runs at first injection, which the rebalance listener forces before any partition is consumed
+    @PostConstruct
+    void restore() {
+        if (path.isEmpty() || !Files.exists(path.get())) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path.get(), StandardOpenOption.READ);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                LOG.warnf("Ignoring snapshot %s with unknown format or an older format version", path.get());
+                return;
+            }
+            in.readLong(); // written at
+            int partitions = in.readInt();
+            Map<TopicPartition, Long> offsets = new HashMap<>();
+            for (int i = 0; i < partitions; i++) {
+                offsets.put(new TopicPartition(in.readUTF(), in.readInt()), in.readLong());
+            }
+            orderState.readFrom(in);
+            // Only trust the offsets once the state they cover has been read completely
+            offsets.forEach(appliedOffsets::applied);
+            LOG.infof("Restored snapshot %s in %d ms: %d customers, %d orders, offsets for %d partitions",
+                    path.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    orderState.getCustomerCount(), orderState.getOrderCount(), partitions);
+        } catch (IOException e) {
+            LOG.errorf(e, "Failed to restore snapshot %s, rebuilding from the topics", path.get());
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (path.isEmpty()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "state-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(interval.toMillis(), 1000);
+        scheduler.scheduleWithFixedDelay(this::write, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            write();
+        }
+    }
+
+    public boolean isEnabled() {
+        return path.isPresent();
+    }
+
+    // Offsets are copied before the state is read, so every record they cover is in the snapshot.
+    // Records applied while writing may be replayed after a restore; all upserts are idempotent.
+    synchronized void write() {
+        Path target = path.get();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long start = System.nanoTime();
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            Map<TopicPartition, Long> offsets = appliedOffsets.copy();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(offsets.size());
+                for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+                    out.writeUTF(entry.getKey().topic());
+                    out.writeInt(entry.getKey().partition());
+                    out.writeLong(entry.getValue());
+                }
+                orderState.writeTo(out);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOG.debugf("Wrote snapshot %s (%d bytes) in %d ms", target, Files.size(target),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            LOG.errorf(e, "Failed to write snapshot %s", target);
+        }
+    }
+}
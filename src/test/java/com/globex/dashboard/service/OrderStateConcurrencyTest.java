@@ -0,0 +1,209 @@
+package com.globex.dashboard.service;
+
+import com.globex.dashboard.model.Customer;
+import com.globex.dashboard.model.LineItem;
+import com.globex.dashboard.model.LoyaltyView;
+import com.globex.dashboard.model.Order;
+import com.globex.dashboard.model.OrderView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Writers keep moving a fixed set of orders between customers and timestamps and re-pricing them
+// through line item batches that end at the same total, so every committed version has ORDERS orders
+// worth ORDERS * ORDER_TOTAL. Readers check that each read sees exactly such a version: totals,
+// leaderboard ranks and the per-customer split agree between the order list and the leaderboard.
+// The build skips tests by default; run with mvn test -DskipTests=false.
+class OrderStateConcurrencyTest {
+    private static final int CUSTOMERS = 10;
+    private static final int ORDERS = 100;
+    private static final double ORDER_TOTAL = 10.0;
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int WRITES_PER_WRITER = 20_000;
+    private static final Instant BASE = Instant.parse("2024-01-01T00:00:00Z");
+
+    private OrderState state;
+
+    @BeforeEach
+    void setUp() {
+        state = new OrderState();
+        state.lineItemStorage = "objects";
+        state.shardCount = 4;
+        state.trackedProducts = 100;
+        state.registry = new SimpleMeterRegistry();
+        state.init();
+
+        List<Customer> customers = new ArrayList<>();
+        for (int c = 0; c < CUSTOMERS; c++) {
+            customers.add(new Customer(customerId(c), customerName(c), "user" + c + "@example.com"));
+        }
+        state.upsertCustomers(customers);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(new Order(orderId(i), customerId(i % CUSTOMERS), ORDER_TOTAL, BASE.plusSeconds(i)));
+        }
+        state.upsertOrders(orders);
+    }
+
+    @Test
+    void readsSeeOneVersionWhileWritersRace() throws InterruptedException {
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int n = 0; n < WRITES_PER_WRITER; n++) {
+                        write(ThreadLocalRandom.current());
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                } finally {
+                    writersDone.countDown();
+                }
+            }, "writer-" + w));
+        }
+        for (int r = 0; r < READERS; r++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    while (writing.get()) {
+                        state.read(() -> {
+                            checkConsistent();
+                            return null;
+                        });
+                        checkLeaderboard(state.getLoyaltyByCustomer());
+                        checkOrders(state.getRecentOrders(0));
+                        reads.incrementAndGet();
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }, "reader-" + r));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        writersDone.await();
+        writing.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (!failures.isEmpty()) {
+            throw new AssertionError("Inconsistent read", failures.peek());
+        }
+        assertTrue(reads.get() > 0, "readers never completed a read");
+        checkConsistent();
+    }
+
+    // One of: move an order to another customer and createdAt, re-price it through a line item batch
+    // that sums back to ORDER_TOTAL, or move several orders at once in a batch
+    private void write(ThreadLocalRandom random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                state.upsertOrder(movedOrder(random, random.nextInt(ORDERS)));
+                break;
+            case 1: {
+                String orderId = orderId(random.nextInt(ORDERS));
+                double first = 1 + random.nextInt(9);
+                // The first item alone leaves the order at `first`; only the whole batch is a valid version
+                state.upsertLineItems(List.of(
+                        new LineItem(orderId + "-a", orderId, "product-" + random.nextInt(5), 1, first),
+                        new LineItem(orderId + "-b", orderId, "product-" + random.nextInt(5), 1, ORDER_TOTAL - first)));
+                break;
+            }
+            default: {
+                List<Order> batch = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                    batch.add(movedOrder(random, random.nextInt(ORDERS)));
+                }
+                state.upsertOrders(batch);
+                break;
+            }
+        }
+    }
+
+    private static Order movedOrder(ThreadLocalRandom random, int order) {
+        return new Order(orderId(order), customerId(random.nextInt(CUSTOMERS)), ORDER_TOTAL,
+                BASE.plusSeconds(random.nextInt(ORDERS * 10)));
+    }
+
+    private void checkConsistent() {
+        List<LoyaltyView> loyalty = state.getLoyaltyByCustomer();
+        List<OrderView> orders = state.getRecentOrders(0);
+        checkLeaderboard(loyalty);
+        checkOrders(orders);
+
+        Map<String, Double> spendByName = new HashMap<>();
+        for (OrderView order : orders) {
+            spendByName.merge(order.getCustomerName(), order.getTotalAmount(), Double::sum);
+        }
+        assertEquals(spendByName.size(), loyalty.size(), "customers with orders vs leaderboard entries");
+        for (LoyaltyView standing : loyalty) {
+            assertEquals(spendByName.getOrDefault(standing.getCustomerName(), 0.0), standing.getTotalSpend(), 1e-6,
+                    "order totals vs leaderboard spend of " + standing.getCustomerId());
+        }
+    }
+
+    private static void checkLeaderboard(List<LoyaltyView> loyalty) {
+        double spend = 0.0;
+        long previousPoints = Long.MAX_VALUE;
+        Set<String> seen = new HashSet<>();
+        for (LoyaltyView standing : loyalty) {
+            assertTrue(seen.add(standing.getCustomerId()), "customer ranked twice: " + standing.getCustomerId());
+            assertTrue(standing.getLoyaltyPoints() <= previousPoints, "ranking out of order at " + standing.getCustomerId());
+            assertEquals(LoyaltyLeaderboard.pointsFor(standing.getTotalSpend()), standing.getLoyaltyPoints());
+            previousPoints = standing.getLoyaltyPoints();
+            spend += standing.getTotalSpend();
+        }
+        assertEquals(ORDERS * ORDER_TOTAL, spend, 1e-6, "leaderboard spend");
+    }
+
+    private static void checkOrders(List<OrderView> orders) {
+        assertEquals(ORDERS, orders.size(), "orders listed");
+        Set<String> seen = new HashSet<>();
+        double total = 0.0;
+        Instant previous = Instant.MAX;
+        for (OrderView order : orders) {
+            assertTrue(seen.add(order.getOrderId()), "order listed twice: " + order.getOrderId());
+            assertTrue(!order.getCreatedAt().isAfter(previous), "orders out of order at " + order.getOrderId());
+            previous = order.getCreatedAt();
+            total += order.getTotalAmount();
+        }
+        assertEquals(ORDERS * ORDER_TOTAL, total, 1e-6, "order totals");
+    }
+
+    private static String customerId(int c) {
+        return "user" + c;
+    }
+
+    private static String customerName(int c) {
+        return "First" + c + " Last" + c;
+    }
+
+    private static String orderId(int i) {
+        return Integer.toString(i + 1);
+    }
+}